@@ -0,0 +1,63 @@
+package org.example.exchange.benchmark;
+
+import org.example.exchange.model.RateAverager;
+import org.example.exchange.model.RateQuotes;
+import org.example.exchange.model.RateTable;
+import org.example.exchange.service.impl.ExchangeRateServiceImpl;
+import org.example.exchange.utils.WebClientUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AveragingBenchmark {
+
+    private final ExchangeRateServiceImpl exchangeRateService = new ExchangeRateServiceImpl();
+
+    private List<Map<String, Object>> formattedResponses;
+    private List<RateQuotes> quotes;
+    private List<String> allSymbols;
+
+    @Setup
+    public void setUp() throws IOException {
+        String currencyApi = BenchmarkFixtures.currencyApiPayload("usd");
+        String frankfurter = BenchmarkFixtures.frankfurterPayload("usd");
+        allSymbols = BenchmarkFixtures.currencyCodes(BenchmarkFixtures.CURRENCY_API_CURRENCIES);
+
+        formattedResponses = List.of(
+                WebClientUtil.formatExchangeData("usd", allSymbols, BenchmarkFixtures.decode(frankfurter)),
+                WebClientUtil.formatExchangeData("usd", allSymbols, BenchmarkFixtures.decode(currencyApi)));
+        quotes = List.of(
+                WebClientUtil.parseRates(new ByteArrayInputStream(frankfurter.getBytes(StandardCharsets.UTF_8)), "rates"),
+                WebClientUtil.parseRates(new ByteArrayInputStream(currencyApi.getBytes(StandardCharsets.UTF_8)), "usd"));
+    }
+
+    @Benchmark
+    public Map<String, Object> calculateAverageRates() {
+        return exchangeRateService.calculateAverageRates("usd", formattedResponses, allSymbols);
+    }
+
+    @Benchmark
+    public RateTable fixedPointAverage() {
+        return RateAverager.average("usd", quotes);
+    }
+}
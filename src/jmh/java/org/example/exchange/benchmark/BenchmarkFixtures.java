@@ -0,0 +1,96 @@
+package org.example.exchange.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.exchange.cache.RateCache;
+import org.example.exchange.cache.RenderedResponseCache;
+import org.example.exchange.limit.UpstreamAdmission;
+import org.example.exchange.config.ExchangeRateProperties;
+import org.example.exchange.provider.CurrencyApiRateProvider;
+import org.example.exchange.provider.FrankfurterRateProvider;
+import org.example.exchange.service.impl.ExchangeRateServiceImpl;
+import org.example.exchange.utils.WebClientUtil;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Synthetic upstream payloads shaped like frankfurter and currency-api responses, and a service wired without Spring.
+ */
+final class BenchmarkFixtures {
+
+    static final int CURRENCY_API_CURRENCIES = 340;
+    static final int FRANKFURTER_CURRENCIES = 30;
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private BenchmarkFixtures() {
+    }
+
+    static List<String> currencyCodes(int count) {
+        List<String> codes = new ArrayList<>(count);
+        for (int i = 0; codes.size() < count; i++) {
+            codes.add("" + (char) ('a' + i / 676 % 26) + (char) ('a' + i / 26 % 26) + (char) ('a' + i % 26));
+        }
+        return codes;
+    }
+
+    static String currencyApiPayload(String base) {
+        Random random = new Random(1);
+        StringBuilder json = new StringBuilder("{\"date\": \"2025-06-05\", \"").append(base).append("\": {");
+        List<String> codes = currencyCodes(CURRENCY_API_CURRENCIES);
+        for (int i = 0; i < codes.size(); i++) {
+            json.append(i == 0 ? "" : ",").append('"').append(codes.get(i)).append("\": ")
+                    .append(random.nextDouble() * Math.pow(10, random.nextInt(12) - 5));
+        }
+        return json.append("}}").toString();
+    }
+
+    static String frankfurterPayload(String base) {
+        Random random = new Random(2);
+        StringBuilder json = new StringBuilder("{\"amount\": 1.0, \"base\": \"").append(base.toUpperCase())
+                .append("\", \"date\": \"2025-06-05\", \"rates\": {");
+        List<String> codes = currencyCodes(FRANKFURTER_CURRENCIES);
+        for (int i = 0; i < codes.size(); i++) {
+            json.append(i == 0 ? "" : ",").append('"').append(codes.get(i).toUpperCase()).append("\": ")
+                    .append(Math.round(random.nextDouble() * 100_000) / 1000.0);
+        }
+        return json.append("}}").toString();
+    }
+
+    static Map<String, Object> decode(String payload) {
+        try {
+            return OBJECT_MAPPER.readValue(payload, new TypeReference<>() {});
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static ExchangeRateServiceImpl exchangeRateService(String upstreamUrl, int cacheExpirySeconds) {
+        ExchangeRateProperties properties = new ExchangeRateProperties();
+        properties.setUrls(Map.of(
+                "frankfurter-url", upstreamUrl + "/frankfurter",
+                "primary-currency-url", upstreamUrl + "/primary",
+                "fallback-currency-url", upstreamUrl + "/fallback"));
+        WebClientUtil webClientUtil = new WebClientUtil(WebClient.builder().build());
+
+        ExchangeRateServiceImpl service = new ExchangeRateServiceImpl();
+        ReflectionTestUtils.setField(service, "rateProviders", List.of(
+                new FrankfurterRateProvider(webClientUtil, properties),
+                new CurrencyApiRateProvider(webClientUtil, properties)));
+        ReflectionTestUtils.setField(service, "exchangeRateProperties", properties);
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        ReflectionTestUtils.setField(service, "rateCache", new RateCache(cacheManager));
+        ReflectionTestUtils.setField(service, "renderedResponseCache", new RenderedResponseCache(cacheManager));
+        ReflectionTestUtils.setField(service, "upstreamAdmission", new UpstreamAdmission(properties));
+        ReflectionTestUtils.setField(service, "cacheExpirySeconds", cacheExpirySeconds);
+        return service;
+    }
+}
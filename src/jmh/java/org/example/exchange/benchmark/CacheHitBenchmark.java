@@ -0,0 +1,100 @@
+package org.example.exchange.benchmark;
+
+import org.example.exchange.cache.RateCache;
+import org.example.exchange.config.ExchangeRateProperties;
+import org.example.exchange.model.RateTable;
+import org.example.exchange.service.impl.ExchangeRateServiceImpl;
+import org.example.exchange.trace.RequestTracer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheHitBenchmark {
+
+    private ExchangeRateServiceImpl exchangeRateService;
+    private RequestTracer requestTracer;
+    private RateCache rateCache;
+    private Map<String, Map<String, BigDecimal>> legacyCache;
+    private List<String> symbols;
+
+    @Setup
+    public void setUp() {
+        exchangeRateService = BenchmarkFixtures.exchangeRateService("http://localhost:1", 3600);
+        symbols = List.of("aab", "abc", "ajk", "bcd", "xxx");
+
+        Map<String, BigDecimal> rates = new HashMap<>();
+        for (String code : BenchmarkFixtures.currencyCodes(BenchmarkFixtures.CURRENCY_API_CURRENCIES)) {
+            rates.put(code, new BigDecimal("1.234567"));
+        }
+        rateCache = (RateCache) ReflectionTestUtils.getField(exchangeRateService, "rateCache");
+        RateTable rateTable = RateTable.of("usd", rates);
+        rateCache.put("usd", rateTable);
+        legacyCache = new ConcurrentHashMap<>();
+        legacyCache.put(legacyKey("USD", symbols), rateTable.project(symbols));
+        requestTracer = new RequestTracer(new ExchangeRateProperties());
+    }
+
+    /**
+     * A hit in a cache of projected responses keyed by base and symbols, as it was before tables were kept per base.
+     */
+    @Benchmark
+    public Map<String, BigDecimal> legacyCacheLookup() {
+        return legacyCache.get(legacyKey("USD", symbols));
+    }
+
+    /**
+     * A hit in the per-base {@link RateCache}, projected to the requested symbols.
+     */
+    @Benchmark
+    public Map<String, BigDecimal> perBaseCacheLookup() {
+        return rateCache.get("USD".toLowerCase()).getRateTable().project(symbols);
+    }
+
+    private static String legacyKey(String baseCur, List<String> symbols) {
+        return baseCur.toLowerCase() + ":" + String.join(",", symbols.stream().map(String::toLowerCase).sorted().toList());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Map<String, Object> cacheHit() {
+        return exchangeRateService.getAverageExchangeRates("usd", symbols).block();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public byte[] renderedCacheHit() {
+        return exchangeRateService.getRenderedExchangeRates("usd", symbols).block().body();
+    }
+
+    /**
+     * {@link #renderedCacheHit} with the per-request phase tracing the controller applies.
+     */
+    @Benchmark
+    @Threads(4)
+    public byte[] tracedRenderedCacheHit() {
+        return requestTracer.trace("GET /exchangeRates/usd", exchangeRateService.getRenderedExchangeRates("usd", symbols),
+                rendered -> "200").block().body();
+    }
+}
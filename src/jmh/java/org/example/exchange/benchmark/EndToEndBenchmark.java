@@ -0,0 +1,74 @@
+package org.example.exchange.benchmark;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.example.exchange.service.impl.ExchangeRateServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full miss path against a local MockWebServer standing in for frankfurter and currency-api:
+ * fan-out, decode, average and project. {@code cacheExpirySeconds=0} forces every call upstream.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class EndToEndBenchmark {
+
+    @Param({"0", "300"})
+    public int cacheExpirySeconds;
+
+    private MockWebServer upstream;
+    private ExchangeRateServiceImpl exchangeRateService;
+    private List<String> symbols;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        String frankfurter = BenchmarkFixtures.frankfurterPayload("usd");
+        String currencyApi = BenchmarkFixtures.currencyApiPayload("usd");
+
+        upstream = new MockWebServer();
+        upstream.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String body = request.getPath().startsWith("/frankfurter") ? frankfurter : currencyApi;
+                return new MockResponse().setBody(body).addHeader("Content-Type", "application/json");
+            }
+        });
+        upstream.start();
+
+        exchangeRateService = BenchmarkFixtures.exchangeRateService(upstream.url("").toString().replaceAll("/$", ""), cacheExpirySeconds);
+        symbols = BenchmarkFixtures.currencyCodes(5);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        upstream.shutdown();
+    }
+
+    @Benchmark
+    public Map<String, Object> getAverageExchangeRates() {
+        return exchangeRateService.getAverageExchangeRates("usd", symbols).block();
+    }
+}
@@ -0,0 +1,57 @@
+package org.example.exchange.benchmark;
+
+import org.example.exchange.model.RateQuotes;
+import org.example.exchange.utils.WebClientUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RateParsingBenchmark {
+
+    private byte[] currencyApiBytes;
+    private Map<String, Object> currencyApiResponse;
+    private List<String> symbols;
+
+    @Setup
+    public void setUp() {
+        String payload = BenchmarkFixtures.currencyApiPayload("usd");
+        currencyApiBytes = payload.getBytes(StandardCharsets.UTF_8);
+        currencyApiResponse = BenchmarkFixtures.decode(payload);
+        symbols = BenchmarkFixtures.currencyCodes(BenchmarkFixtures.CURRENCY_API_CURRENCIES).subList(0, 10);
+    }
+
+    @Benchmark
+    public Map<String, Object> decodeToMapAndFormat() {
+        return WebClientUtil.formatExchangeData("usd", symbols, BenchmarkFixtures.decode(new String(currencyApiBytes, StandardCharsets.UTF_8)));
+    }
+
+    @Benchmark
+    public Map<String, Object> formatExchangeData() {
+        return WebClientUtil.formatExchangeData("usd", symbols, currencyApiResponse);
+    }
+
+    @Benchmark
+    public RateQuotes streamingParseRates() throws IOException {
+        return WebClientUtil.parseRates(new ByteArrayInputStream(currencyApiBytes), "usd");
+    }
+}
@@ -0,0 +1,223 @@
+package org.example.exchange.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.example.exchange.cache.RateCache;
+import org.example.exchange.cache.RenderedResponseCache;
+import org.example.exchange.limit.UpstreamAdmission;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives {@code GET /exchangeRates/{base}} at a target rate against simulated upstreams and reports throughput,
+ * latency percentiles, upstream calls, cache hit ratio and thread counts to stdout and
+ * {@code target/load-reports/<scenario>.json}. Thread counts are JVM-wide platform threads; the generator shares
+ * the JVM but runs its requests on virtual threads. Only compiled and run with {@code -Pload-test}; every knob
+ * is a {@code -Dload.*} system property, and {@code -Dreactive -Dspring.profiles.active=reactive} measures the Netty
+ * runtime built without Tomcat.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ExchangeRateLoadTest {
+
+    private static final List<String> POPULAR_BASES = List.of(
+            "usd", "eur", "gbp", "jpy", "chf", "cad", "aud", "cny", "hkd", "sgd",
+            "sek", "nok", "dkk", "nzd", "krw", "inr", "brl", "mxn", "zar", "try",
+            "pln", "czk", "huf", "ils", "thb", "myr", "idr", "php", "aed", "sar");
+
+    private static SimulatedUpstream frankfurter;
+    private static SimulatedUpstream primaryCurrencyApi;
+    private static SimulatedUpstream fallbackCurrencyApi;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private RateCache rateCache;
+
+    @Autowired
+    private UpstreamAdmission upstreamAdmission;
+
+    @DynamicPropertySource
+    static void upstreams(DynamicPropertyRegistry registry) throws IOException {
+        frankfurter = new SimulatedUpstream(SimulatedUpstream.Flavor.FRANKFURTER).start();
+        primaryCurrencyApi = new SimulatedUpstream(SimulatedUpstream.Flavor.CURRENCY_API).start();
+        fallbackCurrencyApi = new SimulatedUpstream(SimulatedUpstream.Flavor.CURRENCY_API).start();
+
+        registry.add("exchange-rate.urls.frankfurter-url", frankfurter::url);
+        registry.add("exchange-rate.urls.primary-currency-url", primaryCurrencyApi::url);
+        registry.add("exchange-rate.urls.fallback-currency-url", fallbackCurrencyApi::url);
+        registry.add("cache-expiry-seconds", () -> setting("cache-expiry-seconds", 5));
+        registry.add("exchange-rate.cache.refresh-ahead.enabled", () -> true);
+        registry.add("exchange-rate.cache.snapshot.enabled", () -> false);
+        registry.add("exchange-rate.history.enabled", () -> false);
+        registry.add("exchange-rate.rate-limit.enabled", () -> true);
+        registry.add("exchange-rate.rate-limit.api-keys", () -> IntStream.range(0, setting("clients", 100))
+                .mapToObj(i -> "load-client-" + i)
+                .collect(Collectors.joining(",")));
+    }
+
+    @AfterAll
+    static void stopUpstreams() throws IOException {
+        frankfurter.close();
+        primaryCurrencyApi.close();
+        fallbackCurrencyApi.close();
+    }
+
+    @BeforeEach
+    void reset() {
+        cacheManager.getCache(RateCache.CACHE_NAME).clear();
+        cacheManager.getCache(RenderedResponseCache.CACHE_NAME).clear();
+        frankfurter.resetCounters();
+        primaryCurrencyApi.resetCounters();
+        fallbackCurrencyApi.resetCounters();
+    }
+
+    @Test
+    void healthyUpstreams() throws Exception {
+        SimulatedUpstream.Faults faults = SimulatedUpstream.Faults.latency(Duration.ofMillis(20), Duration.ofMillis(80));
+        frankfurter.setFaults(faults);
+        primaryCurrencyApi.setFaults(faults);
+        fallbackCurrencyApi.setFaults(faults);
+
+        LoadGenerator.Result result = drive("healthy");
+
+        assertTrue(result.successRatio() >= setting("min-success-ratio", 0.99), "success ratio " + result.successRatio());
+        assertTrue(result.percentileMillis(99) <= setting("max-p99-ms", 250), "p99 " + result.percentileMillis(99) + "ms");
+    }
+
+    /**
+     * Heavy-tailed frankfurter, a primary currency-api host that fails a quarter of its calls or trickles its body,
+     * and a healthy fallback: timeouts, hedging, breakers and admission control all have to engage.
+     */
+    @Test
+    void degradedUpstreams() throws Exception {
+        frankfurter.setFaults(SimulatedUpstream.Faults.latency(Duration.ofMillis(40), Duration.ofMillis(1500)));
+        primaryCurrencyApi.setFaults(SimulatedUpstream.Faults.latency(Duration.ofMillis(30), Duration.ofMillis(300))
+                .withErrors(0.2)
+                .withDisconnects(0.05)
+                .withSlowBodies(0.1, 4096));
+        fallbackCurrencyApi.setFaults(SimulatedUpstream.Faults.latency(Duration.ofMillis(30), Duration.ofMillis(120)));
+
+        LoadGenerator.Result result = drive("degraded");
+
+        assertTrue(result.successRatio() >= setting("degraded-min-success-ratio", 0.95), "success ratio " + result.successRatio());
+        assertTrue(result.percentileMillis(99) <= setting("degraded-max-p99-ms", 6000), "p99 " + result.percentileMillis(99) + "ms");
+    }
+
+    private LoadGenerator.Result drive(String scenario) throws Exception {
+        int rps = setting("rps", 200);
+        IntFunction<HttpRequest.Builder> requests = requestMix(setting("bases", 20), setting("symbols", 3), setting("clients", 100));
+
+        try (LoadGenerator generator = new LoadGenerator(Duration.ofSeconds(setting("request-timeout-seconds", 15)))) {
+            generator.run(rps, Duration.ofSeconds(setting("warmup-seconds", 5)), requests);
+
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            threads.resetPeakThreadCount();
+            long threadsStarted = threads.getTotalStartedThreadCount();
+            Map<String, Object> cacheBefore = rateCache.getStatistics();
+            Map<String, Object> admissionBefore = upstreamAdmission.getStatistics();
+            frankfurter.resetCounters();
+            primaryCurrencyApi.resetCounters();
+            fallbackCurrencyApi.resetCounters();
+
+            LoadGenerator.Result result = generator.run(rps, Duration.ofSeconds(setting("duration-seconds", 20)), requests);
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("scenario", scenario);
+            report.putAll(result.toMap());
+            report.put("upstreams", Map.of(
+                    "frankfurter", frankfurter.getStatistics(),
+                    "primaryCurrencyApi", primaryCurrencyApi.getStatistics(),
+                    "fallbackCurrencyApi", fallbackCurrencyApi.getStatistics()));
+            report.put("cache", cacheDelta(cacheBefore, rateCache.getStatistics()));
+            report.put("admissionRejected", (long) upstreamAdmission.getStatistics().get("rejected") - (long) admissionBefore.get("rejected"));
+            report.put("threads", Map.of(
+                    "peak", threads.getPeakThreadCount(),
+                    "live", threads.getThreadCount(),
+                    "started", threads.getTotalStartedThreadCount() - threadsStarted));
+            writeReport(scenario, report);
+            return result;
+        }
+    }
+
+    /**
+     * Deterministic request mix: bases skewed towards the most popular ones, symbols drawn uniformly and requests
+     * spread over {@code clients} API keys so the per-client rate limit applies as it would in production.
+     */
+    private IntFunction<HttpRequest.Builder> requestMix(int bases, int symbols, int clients) {
+        Random random = new Random(42);
+        List<URI> targets = new ArrayList<>();
+        for (int i = 0; i < 1024; i++) {
+            String base = POPULAR_BASES.get((int) (Math.pow(random.nextDouble(), 2) * Math.min(bases, POPULAR_BASES.size())));
+            List<String> picked = new ArrayList<>();
+            while (picked.size() < symbols) {
+                String symbol = SimulatedUpstream.CURRENCIES.get(random.nextInt(SimulatedUpstream.CURRENCIES.size()));
+                if (!symbol.equals(base) && !picked.contains(symbol)) {
+                    picked.add(symbol);
+                }
+            }
+            targets.add(URI.create("http://localhost:" + port + "/exchangeRates/" + base + "?symbols=" + String.join(",", picked)));
+        }
+        return i -> HttpRequest.newBuilder(targets.get(i % targets.size()))
+                .header("X-API-Key", "load-client-" + i % clients)
+                .GET();
+    }
+
+    private static Map<String, Object> cacheDelta(Map<String, Object> before, Map<String, Object> after) {
+        long hits = (long) after.get("hits") - (long) before.get("hits");
+        long misses = (long) after.get("misses") - (long) before.get("misses");
+        return Map.of(
+                "hits", hits,
+                "misses", misses,
+                "hitRatio", hits + misses == 0 ? 0 : (double) hits / (hits + misses));
+    }
+
+    private static void writeReport(String scenario, Map<String, Object> report) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        String json = objectMapper.writeValueAsString(report);
+        Path file = Path.of("target", "load-reports", scenario + ".json");
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, json);
+        System.out.println("Load test report (" + file + "):\n" + json);
+    }
+
+    private static int setting(String name, int defaultValue) {
+        return Integer.getInteger("load." + name, defaultValue);
+    }
+
+    private static double setting(String name, double defaultValue) {
+        String value = System.getProperty("load." + name);
+        return value != null ? Double.parseDouble(value) : defaultValue;
+    }
+}
@@ -0,0 +1,133 @@
+package org.example.exchange.load;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntFunction;
+
+/**
+ * Open-loop driver: request {@code i} is due at {@code start + i / rps} whether or not earlier requests have
+ * completed, and its latency is measured from that due time. A stalled server therefore shows up as queueing
+ * delay in the percentiles instead of silently lowering the offered load (coordinated omission).
+ */
+public class LoadGenerator implements AutoCloseable {
+
+    /** Latencies in nanoseconds, one slot per request; {@code -1} marks requests that never completed. */
+    public record Result(int rps, Duration elapsed, long[] latencies, Map<String, Long> statuses) {
+
+        public long completed() {
+            return Arrays.stream(latencies).filter(latency -> latency >= 0).count();
+        }
+
+        public long successes() {
+            return statuses.entrySet().stream()
+                    .filter(status -> status.getKey().startsWith("2") || status.getKey().equals("304"))
+                    .mapToLong(Map.Entry::getValue)
+                    .sum();
+        }
+
+        public double successRatio() {
+            return latencies.length == 0 ? 1 : (double) successes() / latencies.length;
+        }
+
+        public double percentileMillis(double percentile) {
+            long[] sorted = Arrays.stream(latencies).filter(latency -> latency >= 0).sorted().toArray();
+            if (sorted.length == 0) {
+                return Double.NaN;
+            }
+            int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+            return sorted[Math.clamp(index, 0, sorted.length - 1)] / 1_000_000.0;
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> latency = new LinkedHashMap<>();
+            latency.put("p50Ms", percentileMillis(50));
+            latency.put("p90Ms", percentileMillis(90));
+            latency.put("p99Ms", percentileMillis(99));
+            latency.put("p999Ms", percentileMillis(99.9));
+            latency.put("maxMs", percentileMillis(100));
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("targetRps", rps);
+            result.put("requests", latencies.length);
+            result.put("completed", completed());
+            result.put("throughputRps", completed() / Math.max(1e-9, elapsed.toNanos() / 1e9));
+            result.put("successRatio", successRatio());
+            result.put("statuses", new TreeMap<>(statuses));
+            result.put("latency", latency);
+            return result;
+        }
+    }
+
+    private final HttpClient httpClient;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Duration requestTimeout;
+
+    public LoadGenerator(Duration requestTimeout) {
+        this.requestTimeout = requestTimeout;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(requestTimeout)
+                .executor(executor)
+                .build();
+    }
+
+    /**
+     * Offers {@code rps} requests per second for {@code duration}, building request {@code i} with
+     * {@code requests}, then waits up to the request timeout for stragglers.
+     */
+    public Result run(int rps, Duration duration, IntFunction<HttpRequest.Builder> requests) throws InterruptedException {
+        int total = (int) Math.max(1, rps * duration.toMillis() / 1000);
+        HttpRequest[] prepared = new HttpRequest[total];
+        for (int i = 0; i < total; i++) {
+            prepared[i] = requests.apply(i).timeout(requestTimeout).build();
+        }
+
+        long[] latencies = new long[total];
+        Arrays.fill(latencies, -1);
+        Map<String, LongAdder> statuses = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(total);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rps;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            long due = start + i * intervalNanos;
+            for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()) {
+                LockSupport.parkNanos(wait);
+            }
+            int slot = i;
+            httpClient.sendAsync(prepared[i], HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        latencies[slot] = System.nanoTime() - due;
+                        String status = response != null ? String.valueOf(response.statusCode()) : error.getClass().getSimpleName();
+                        statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+                        done.countDown();
+                    });
+        }
+        if (!done.await(requestTimeout.toMillis() + 1000, TimeUnit.MILLISECONDS)) {
+            statuses.computeIfAbsent("incomplete", key -> new LongAdder()).add(done.getCount());
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        Map<String, Long> counts = new TreeMap<>();
+        statuses.forEach((status, count) -> counts.put(status, count.sum()));
+        return new Result(rps, elapsed, latencies, counts);
+    }
+
+    @Override
+    public void close() {
+        httpClient.close();
+        executor.shutdownNow();
+    }
+}
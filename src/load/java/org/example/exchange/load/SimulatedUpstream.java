@@ -0,0 +1,205 @@
+package org.example.exchange.load;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Currency;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * MockWebServer standing in for frankfurter or a currency-api host, serving every ISO currency as a base with
+ * deterministic rates, so both providers agree and every average succeeds unless a fault is injected.
+ * Faults can be swapped while the server is running.
+ */
+public class SimulatedUpstream implements Closeable {
+
+    public static final List<String> CURRENCIES = Currency.getAvailableCurrencies().stream()
+            .map(currency -> currency.getCurrencyCode().toLowerCase(Locale.ROOT))
+            .filter(code -> code.matches("[a-z]{3}"))
+            .sorted()
+            .toList();
+
+    /** z-score of the 99th percentile of a standard normal distribution */
+    private static final double Z_99 = 2.3263;
+
+    public enum Flavor {
+        /** {@code /latest?base=usd} answering {@code {"base":"USD","rates":{"EUR":0.9,...}}} */
+        FRANKFURTER,
+        /** {@code /currencies/usd.json} answering {@code {"date":"...","usd":{"eur":0.9,...}}} */
+        CURRENCY_API
+    }
+
+    /**
+     * Latency is log-normal with the given median and 99th percentile, capped at ten times the latter.
+     * Injected errors answer 503, disconnects drop the connection after reading the request and slow bodies
+     * are throttled to {@code slowBodyBytesPerSecond}.
+     */
+    public record Faults(Duration medianLatency, Duration p99Latency, double errorRate, double disconnectRate,
+                         double slowBodyRate, long slowBodyBytesPerSecond) {
+
+        public static Faults none() {
+            return latency(Duration.ZERO, Duration.ZERO);
+        }
+
+        public static Faults latency(Duration median, Duration p99) {
+            return new Faults(median, p99, 0, 0, 0, 0);
+        }
+
+        public Faults withErrors(double rate) {
+            return new Faults(medianLatency, p99Latency, rate, disconnectRate, slowBodyRate, slowBodyBytesPerSecond);
+        }
+
+        public Faults withDisconnects(double rate) {
+            return new Faults(medianLatency, p99Latency, errorRate, rate, slowBodyRate, slowBodyBytesPerSecond);
+        }
+
+        public Faults withSlowBodies(double rate, long bytesPerSecond) {
+            return new Faults(medianLatency, p99Latency, errorRate, disconnectRate, rate, bytesPerSecond);
+        }
+
+        long sampleLatencyMillis() {
+            long median = medianLatency.toMillis();
+            long p99 = p99Latency.toMillis();
+            if (p99 <= median) {
+                return median;
+            }
+            double sigma = Math.log((double) p99 / Math.max(1, median)) / Z_99;
+            double sample = Math.max(1, median) * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian());
+            return Math.min((long) sample, p99 * 10);
+        }
+    }
+
+    private final Flavor flavor;
+    private final MockWebServer server = new MockWebServer();
+    private final Map<String, String> payloads = new ConcurrentHashMap<>();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder disconnects = new LongAdder();
+    private final LongAdder slowBodies = new LongAdder();
+    private volatile Faults faults = Faults.none();
+
+    public SimulatedUpstream(Flavor flavor) {
+        this.flavor = flavor;
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return respond(request);
+            }
+        });
+    }
+
+    public SimulatedUpstream start() throws IOException {
+        server.start();
+        return this;
+    }
+
+    /** Base URL without a trailing slash, as configured under {@code exchange-rate.urls}. */
+    public String url() {
+        return server.url("").toString().replaceAll("/$", "");
+    }
+
+    public void setFaults(Faults faults) {
+        this.faults = faults;
+    }
+
+    public void resetCounters() {
+        calls.reset();
+        errors.reset();
+        disconnects.reset();
+        slowBodies.reset();
+    }
+
+    public Map<String, Object> getStatistics() {
+        return Map.of(
+                "calls", calls.sum(),
+                "injectedErrors", errors.sum(),
+                "injectedDisconnects", disconnects.sum(),
+                "slowBodies", slowBodies.sum()
+        );
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.shutdown();
+    }
+
+    private MockResponse respond(RecordedRequest request) {
+        calls.increment();
+        String base = baseOf(request);
+        if (base == null || !CURRENCIES.contains(base)) {
+            return new MockResponse().setResponseCode(404);
+        }
+
+        Faults current = faults;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        MockResponse response = new MockResponse()
+                .setHeadersDelay(current.sampleLatencyMillis(), TimeUnit.MILLISECONDS);
+        if (random.nextDouble() < current.disconnectRate()) {
+            disconnects.increment();
+            return response.setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST);
+        }
+        if (random.nextDouble() < current.errorRate()) {
+            errors.increment();
+            return response.setResponseCode(503);
+        }
+
+        response.addHeader("Content-Type", "application/json")
+                .setBody(payloads.computeIfAbsent(base, this::payload));
+        if (current.slowBodyBytesPerSecond() > 0 && random.nextDouble() < current.slowBodyRate()) {
+            slowBodies.increment();
+            response.throttleBody(Math.max(1, current.slowBodyBytesPerSecond() / 10), 100, TimeUnit.MILLISECONDS);
+        }
+        return response;
+    }
+
+    private String baseOf(RecordedRequest request) {
+        return switch (flavor) {
+            case FRANKFURTER -> request.getRequestUrl() != null && request.getRequestUrl().encodedPath().equals("/latest")
+                    ? request.getRequestUrl().queryParameter("base")
+                    : null;
+            case CURRENCY_API -> {
+                String path = request.getRequestUrl() != null ? request.getRequestUrl().encodedPath() : "";
+                yield path.startsWith("/currencies/") && path.endsWith(".json")
+                        ? path.substring("/currencies/".length(), path.length() - ".json".length())
+                        : null;
+            }
+        };
+    }
+
+    private String payload(String base) {
+        StringBuilder rates = new StringBuilder();
+        for (String code : CURRENCIES) {
+            if (code.equals(base) && flavor == Flavor.FRANKFURTER) {
+                continue;
+            }
+            if (!rates.isEmpty()) {
+                rates.append(',');
+            }
+            String key = flavor == Flavor.FRANKFURTER ? code.toUpperCase(Locale.ROOT) : code;
+            rates.append('"').append(key).append("\":").append(rate(base, code));
+        }
+        return flavor == Flavor.FRANKFURTER
+                ? "{\"amount\":1.0,\"base\":\"" + base.toUpperCase(Locale.ROOT) + "\",\"date\":\"2025-06-04\",\"rates\":{" + rates + "}}"
+                : "{\"date\":\"2025-06-04\",\"" + base + "\":{" + rates + "}}";
+    }
+
+    private static double rate(String base, String code) {
+        return Math.round(unitValue(code) / unitValue(base) * 1e8) / 1e8;
+    }
+
+    private static double unitValue(String code) {
+        return 0.5 + Math.floorMod(code.hashCode(), 10_000) / 1_000.0;
+    }
+}
@@ -3,54 +3,54 @@ package org.example.exchange.aspect;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
-import org.example.exchange.config.ExchangeRateProperties;
+import org.example.exchange.metrics.UpstreamMetrics;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
 
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
 
 @Aspect
 @Component
 public class ApiMetricsAspect {
 
     @Autowired
-    private ExchangeRateProperties exchangeRateProperties;
+    private UpstreamMetrics upstreamMetrics;
 
-    private final ConcurrentHashMap<String, AtomicInteger> webClientCallCount = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, AtomicInteger> webClientSuccessCount = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, AtomicInteger> webClientFailureCount = new ConcurrentHashMap<>();
-
-    @Around("execution(* org.example.exchange.utils.WebClientUtil.fetchDataWithFallback(..))")
+    @Around("execution(* org.example.exchange.utils.WebClientUtil.fetch*WithFallback(..))")
     public Object trackExchangeRateCalls(ProceedingJoinPoint joinPoint) throws Throwable {
         String apiUrl = extractUrl(joinPoint);
-        String apiKey = getApiKey(apiUrl);
+        UpstreamMetrics.ApiMeters meters = upstreamMetrics.forUrl(apiUrl);
 
-        if (apiKey == null) {
+        if (meters == null) {
             return joinPoint.proceed();
         }
 
-        webClientCallCount.computeIfAbsent(apiKey, k -> new AtomicInteger(0)).incrementAndGet();
+        meters.recordCall();
 
+        Object result;
         try {
-            Object result = joinPoint.proceed();
-            webClientSuccessCount.computeIfAbsent(apiKey, k -> new AtomicInteger(0)).incrementAndGet();
-            return result;
+            result = joinPoint.proceed();
         } catch (Exception e) {
-            webClientFailureCount.computeIfAbsent(apiKey, k -> new AtomicInteger(0)).incrementAndGet();
+            meters.recordFailure(0);
             throw e;
         }
 
-    }
+        if (!(result instanceof Mono<?>)) {
+            return result;
+        }
 
+        return timed((Mono<?>) result, meters);
+    }
 
-    private String getApiKey(String apiUrl) {
-        return exchangeRateProperties.getUrls().entrySet().stream()
-                .filter(entry -> apiUrl.startsWith(entry.getValue()))
-                .map(Map.Entry::getKey)
-                .findFirst()
-                .orElse(null);
+    private static <T> Mono<T> timed(Mono<T> mono, UpstreamMetrics.ApiMeters meters) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return mono
+                    .doOnNext(value -> meters.recordSuccess(System.nanoTime() - start))
+                    .switchIfEmpty(Mono.fromRunnable(() -> meters.recordFailure(System.nanoTime() - start)))
+                    .doOnError(e -> meters.recordFailure(System.nanoTime() - start));
+        });
     }
 
     private String extractUrl(ProceedingJoinPoint joinPoint) {
@@ -64,16 +64,9 @@ public class ApiMetricsAspect {
 
     public Map<String, Object> getWebClientMetrics() {
         return Map.of(
-                "apis", webClientCallCount.keySet().stream().map(apiKey -> Map.of(
-                        "name", apiKey,
-                        "totalRequests", webClientCallCount.getOrDefault(apiKey, new AtomicInteger(0)).get(),
-                        "successfulRequests", webClientSuccessCount.getOrDefault(apiKey, new AtomicInteger(0)).get(),
-                        "failedRequests", webClientFailureCount.getOrDefault(apiKey, new AtomicInteger(0)).get()
-                )).toList()
+                "apis", upstreamMetrics.getApis().stream()
+                        .map(UpstreamMetrics.ApiMeters::snapshot)
+                        .toList()
         );
     }
 }
-
-
-
-
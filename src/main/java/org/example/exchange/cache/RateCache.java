@@ -0,0 +1,171 @@
+package org.example.exchange.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.example.exchange.model.RateTable;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class RateCache {
+
+    public static final String CACHE_NAME = "rateTables";
+
+    public static class Entry {
+        private final RateTable rateTable;
+        private final Instant timestamp;
+        private final AccessStats accessStats;
+
+        Entry(RateTable rateTable, Instant timestamp, AccessStats accessStats) {
+            this.rateTable = rateTable;
+            this.timestamp = timestamp;
+            this.accessStats = accessStats;
+        }
+
+        public RateTable getRateTable() {
+            return rateTable;
+        }
+
+        public Instant getTimestamp() {
+            return timestamp;
+        }
+
+        public Duration age() {
+            return Duration.between(timestamp, Instant.now());
+        }
+
+        public boolean isFresh(long expirySeconds) {
+            return Instant.now().isBefore(timestamp.plusSeconds(expirySeconds));
+        }
+    }
+
+    /**
+     * Access counts survive table refreshes so hotness reflects the base currency, not one table version.
+     * The score is an exponentially decayed hit count, folded in whenever hottest bases are ranked.
+     */
+    static class AccessStats {
+        private final LongAdder hits = new LongAdder();
+        private volatile double score;
+
+        void recordHit() {
+            hits.increment();
+        }
+
+        double decayAndScore() {
+            score = score / 2 + hits.sumThenReset();
+            return score;
+        }
+    }
+
+    /**
+     * Update sink of one base and its subscriber count. The count is only changed inside {@code compute} on
+     * {@link #updateStreams}, so a stream is removed with its last subscriber and never while another one joins.
+     */
+    private static class UpdateStream {
+        final Sinks.Many<RateTable> sink = Sinks.many().multicast().directBestEffort();
+        int subscribers;
+    }
+
+    private final Cache<Object, Object> entries;
+
+    private final Map<String, UpdateStream> updateStreams = new ConcurrentHashMap<>();
+
+    public RateCache(CacheManager cacheManager) {
+        this.entries = ((CaffeineCache) cacheManager.getCache(CACHE_NAME)).getNativeCache();
+    }
+
+    public Entry get(String base) {
+        Entry entry = (Entry) entries.getIfPresent(base);
+        if (entry != null) {
+            entry.accessStats.recordHit();
+        }
+        return entry;
+    }
+
+    public Entry peek(String base) {
+        return (Entry) entries.policy().getIfPresentQuietly(base);
+    }
+
+    public void put(String base, RateTable rateTable) {
+        put(base, rateTable, Instant.now());
+    }
+
+    /**
+     * Stores a table fetched at {@code timestamp} rather than now, e.g. a copy replicated from a peer.
+     */
+    public void put(String base, RateTable rateTable, Instant timestamp) {
+        entries.asMap().compute(base, (key, previous) -> new Entry(rateTable, timestamp,
+                previous != null ? ((Entry) previous).accessStats : new AccessStats()));
+
+        UpdateStream stream = updateStreams.get(base);
+        if (stream != null) {
+            synchronized (stream.sink) {
+                stream.sink.tryEmitNext(rateTable);
+            }
+        }
+    }
+
+    /**
+     * Hot stream of every table stored for {@code base} from now on. All subscribers of a base share
+     * one sink, so a refresh fans out without any per-subscriber work; slow subscribers drop updates.
+     * The sink exists only while subscribed, so streams of arbitrary or failing bases leave nothing behind.
+     */
+    public Flux<RateTable> updates(String base) {
+        return Flux.defer(() -> {
+            UpdateStream stream = updateStreams.compute(base, (key, current) -> {
+                UpdateStream joined = current != null ? current : new UpdateStream();
+                joined.subscribers++;
+                return joined;
+            });
+            return stream.sink.asFlux().doFinally(signal -> updateStreams.computeIfPresent(base,
+                    (key, current) -> current == stream && --current.subscribers == 0 ? null : current));
+        });
+    }
+
+    public List<String> subscribedBases() {
+        return List.copyOf(updateStreams.keySet());
+    }
+
+    public void restore(String base, RateTable rateTable, Instant timestamp) {
+        entries.asMap().putIfAbsent(base, new Entry(rateTable, timestamp, new AccessStats()));
+    }
+
+    public Map<String, Entry> snapshot() {
+        Map<String, Entry> snapshot = new HashMap<>();
+        entries.asMap().forEach((key, value) -> snapshot.put((String) key, (Entry) value));
+        return snapshot;
+    }
+
+    public List<String> hottestBases(int limit) {
+        return entries.asMap().entrySet().stream()
+                .map(entry -> Map.entry((String) entry.getKey(), ((Entry) entry.getValue()).accessStats.decayAndScore()))
+                .filter(entry -> entry.getValue() > 0)
+                .sorted(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    public Map<String, Object> getStatistics() {
+        CacheStats stats = entries.stats();
+        return Map.of(
+                "size", entries.estimatedSize(),
+                "hits", stats.hitCount(),
+                "misses", stats.missCount(),
+                "hitRatio", stats.hitRate(),
+                "evictions", stats.evictionCount()
+        );
+    }
+}
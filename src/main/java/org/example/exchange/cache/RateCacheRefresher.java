@@ -0,0 +1,63 @@
+package org.example.exchange.cache;
+
+import org.example.exchange.config.ExchangeRateProperties;
+import org.example.exchange.service.ExchangeRateService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Refreshes the most requested base currencies shortly before their tables expire,
+ * so popular pairs are always answered from the cache. Triangulation pivots are always included
+ * and loaded even before their first request, as are bases with live stream subscribers.
+ */
+@Component
+@ConditionalOnProperty(value = "exchange-rate.cache.refresh-ahead.enabled", havingValue = "true")
+public class RateCacheRefresher {
+
+    private static final Logger log = LoggerFactory.getLogger(RateCacheRefresher.class);
+
+    @Autowired
+    private RateCache rateCache;
+
+    @Autowired
+    private ExchangeRateService exchangeRateService;
+
+    @Autowired
+    private ExchangeRateProperties exchangeRateProperties;
+
+    @Value("${cache-expiry-seconds}")
+    private int cacheExpirySeconds;
+
+    @Scheduled(fixedDelayString = "${exchange-rate.cache.refresh-ahead.interval-millis:30000}")
+    public void refreshHottestBases() {
+        ExchangeRateProperties.RefreshAhead refreshAhead = exchangeRateProperties.getCache().getRefreshAhead();
+        Duration refreshAfter = Duration.ofSeconds(Math.max(0, cacheExpirySeconds - refreshAhead.getWindowSeconds()));
+
+        Set<String> bases = new LinkedHashSet<>();
+        ExchangeRateProperties.Triangulation triangulation = exchangeRateProperties.getTriangulation();
+        if (triangulation.isEnabled()) {
+            bases.addAll(triangulation.getPivots());
+        }
+        bases.addAll(rateCache.hottestBases(refreshAhead.getTopN()));
+        bases.addAll(rateCache.subscribedBases());
+
+        for (String base : bases) {
+            RateCache.Entry entry = rateCache.peek(base);
+            boolean warmPivot = entry == null && triangulation.isEnabled() && triangulation.getPivots().contains(base);
+            if (warmPivot || (entry != null && entry.age().compareTo(refreshAfter) >= 0)) {
+                exchangeRateService.refreshRateTable(base).subscribe(
+                        rateTable -> {},
+                        e -> log.warn("Refresh-ahead of {} failed: {}", base, e.getMessage()));
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.example.exchange.cache;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.exchange.config.ExchangeRateProperties;
+import org.example.exchange.model.RateTable;
+import org.example.exchange.model.RateTableCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Periodically writes every cached rate table to a local binary snapshot and reloads it at startup,
+ * so a restarted node answers from the cache instead of refetching every base from upstream.
+ * Each write rewrites the whole file and renames it into place rather than appending to or memory-mapping it:
+ * the cache is bounded by {@code maximum-size}, so a full rewrite per interval is cheap, and a crash never
+ * leaves a torn file behind.
+ */
+@Component
+@ConditionalOnProperty(value = "exchange-rate.cache.snapshot.enabled", havingValue = "true")
+public class RateCacheSnapshot {
+
+    private static final Logger log = LoggerFactory.getLogger(RateCacheSnapshot.class);
+
+    private static final int MAGIC = 0x52435331;
+    private static final int VERSION = 1;
+
+    @Autowired
+    private RateCache rateCache;
+
+    @Autowired
+    private ExchangeRateProperties exchangeRateProperties;
+
+    @Value("${cache-expiry-seconds}")
+    private int cacheExpirySeconds;
+
+    @PostConstruct
+    public void load() {
+        Path path = snapshotPath();
+        if (!Files.exists(path)) {
+            return;
+        }
+
+        long retentionSeconds = exchangeRateProperties.getCache().retentionSeconds(cacheExpirySeconds);
+        int restored = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readUnsignedByte() != VERSION) {
+                log.warn("Ignoring rate cache snapshot {} with unknown format", path);
+                return;
+            }
+            int tableCount = in.readInt();
+            for (int i = 0; i < tableCount; i++) {
+                String base = in.readUTF();
+                Instant now = Instant.now();
+                Instant timestamp = Instant.ofEpochMilli(in.readLong());
+                if (timestamp.isAfter(now)) {
+                    timestamp = now;
+                }
+                RateTable rateTable = RateTableCodec.read(base, in);
+                if (now.isBefore(timestamp.plusSeconds(retentionSeconds))) {
+                    rateCache.restore(base, rateTable, timestamp);
+                    restored++;
+                }
+            }
+            log.info("Restored {} rate tables from {}", restored, path);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to read rate cache snapshot {}: {}", path, e.getMessage());
+        }
+    }
+
+    @Scheduled(initialDelayString = "${exchange-rate.cache.snapshot.interval-millis:60000}",
+            fixedDelayString = "${exchange-rate.cache.snapshot.interval-millis:60000}")
+    @PreDestroy
+    public void write() {
+        Path path = snapshotPath();
+        Map<String, RateCache.Entry> entries = rateCache.snapshot();
+        try {
+            Path directory = path.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path tempFile = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(MAGIC);
+                out.writeByte(VERSION);
+                out.writeInt(entries.size());
+                for (Map.Entry<String, RateCache.Entry> entry : entries.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeLong(entry.getValue().getTimestamp().toEpochMilli());
+                    RateTableCodec.write(entry.getValue().getRateTable(), out);
+                }
+            }
+            Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to write rate cache snapshot {}: {}", path, e.getMessage());
+        }
+    }
+
+    private Path snapshotPath() {
+        return Paths.get(exchangeRateProperties.getCache().getSnapshot().getPath());
+    }
+}
@@ -0,0 +1,97 @@
+package org.example.exchange.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.exchange.model.RateTable;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * UTF-8 JSON bodies of rate responses, rendered once per (base, symbols) and rate table. A hit is a
+ * lookup plus an identity check against the table it was rendered from; a refreshed table re-renders.
+ * Symbols are keyed as a set, so requests differing only in symbol order, case or repeats share a body and tag.
+ */
+@Component
+public class RenderedResponseCache {
+
+    public static final String CACHE_NAME = "renderedResponses";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final JsonFactory JSON_FACTORY = OBJECT_MAPPER.getFactory();
+
+    public record RenderedResponse(RateTable source, byte[] body, String eTag) {
+    }
+
+    private final Cache<Object, Object> responses;
+
+    public RenderedResponseCache(CacheManager cacheManager) {
+        this.responses = ((CaffeineCache) cacheManager.getCache(CACHE_NAME)).getNativeCache();
+    }
+
+    public RenderedResponse get(String baseCur, List<String> requestedSymbols, RateTable rateTable) {
+        List<String> symbols = normalize(requestedSymbols);
+        String key = baseCur + '|' + String.join(",", symbols);
+        RenderedResponse rendered = (RenderedResponse) responses.getIfPresent(key);
+        if (rendered == null || rendered.source() != rateTable) {
+            rendered = new RenderedResponse(rateTable,
+                    renderRates(baseCur, rateTable.project(symbols)),
+                    entityTag(rateTable.getVersion(), baseCur, symbols, false));
+            responses.put(key, rendered);
+        }
+        return rendered;
+    }
+
+    /**
+     * Renders a response that cannot be reused, such as a triangulated one reporting the pivot's age, tagged with
+     * the version of the table it was derived from. Responses with a pivot only get a weak tag.
+     */
+    public RenderedResponse render(Map<String, Object> result, String version, String baseCur, List<String> symbols) {
+        try {
+            return new RenderedResponse(null, OBJECT_MAPPER.writeValueAsBytes(result),
+                    entityTag(version, baseCur, normalize(symbols), result.containsKey("pivot")));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<String> normalize(List<String> symbols) {
+        return symbols.stream().map(String::toLowerCase).distinct().sorted().toList();
+    }
+
+    private static byte[] renderRates(String baseCur, Map<String, BigDecimal> rates) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32 + rates.size() * 24);
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeStringField("base", baseCur);
+            generator.writeObjectFieldStart("rates");
+            for (Map.Entry<String, BigDecimal> rate : rates.entrySet()) {
+                generator.writeNumberField(rate.getKey(), rate.getValue());
+            }
+            generator.writeEndObject();
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * The table version identifies the rates; base and symbols identify the projection.
+     */
+    private static String entityTag(String version, String baseCur, List<String> symbols, boolean weak) {
+        String tag = "\"" + version + "-" + Integer.toHexString(Objects.hash(baseCur, symbols)) + "\"";
+        return weak ? "W/" + tag : tag;
+    }
+}
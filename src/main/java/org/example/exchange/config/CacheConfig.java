@@ -0,0 +1,47 @@
+package org.example.exchange.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import org.example.exchange.cache.RateCache;
+import org.example.exchange.cache.RenderedResponseCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    @Bean
+    public CacheManager cacheManager(ExchangeRateProperties exchangeRateProperties,
+                                     @Value("${cache-expiry-seconds}") int cacheExpirySeconds) {
+        ExchangeRateProperties.Cache cacheProperties = exchangeRateProperties.getCache();
+        Duration retention = Duration.ofSeconds(cacheProperties.retentionSeconds(cacheExpirySeconds));
+
+        Caffeine<Object, Object> rateTables = Caffeine.newBuilder()
+                .expireAfter(Expiry.writing((Object key, Object value) ->
+                        retention.minus(((RateCache.Entry) value).age())))
+                .scheduler(Scheduler.systemScheduler())
+                .recordStats();
+        if (cacheProperties.getMaximumWeight() > 0) {
+            rateTables.maximumWeight(cacheProperties.getMaximumWeight())
+                    .weigher((key, value) -> ((RateCache.Entry) value).getRateTable().size());
+        } else {
+            rateTables.maximumSize(cacheProperties.getMaximumSize());
+        }
+
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(RateCache.CACHE_NAME, rateTables.build());
+        cacheManager.registerCustomCache(RenderedResponseCache.CACHE_NAME, Caffeine.newBuilder()
+                .maximumSize(cacheProperties.getRenderedMaximumSize())
+                .expireAfterAccess(retention)
+                .build());
+        return cacheManager;
+    }
+}
@@ -2,6 +2,10 @@ package org.example.exchange.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 @Configuration
@@ -9,6 +13,26 @@ import java.util.Map;
 public class ExchangeRateProperties {
     private Map<String, String> urls;
 
+    private Aggregation aggregation = new Aggregation();
+
+    private Cache cache = new Cache();
+
+    private Resilience resilience = new Resilience();
+
+    private Http http = new Http();
+
+    private Triangulation triangulation = new Triangulation();
+
+    private RateLimit rateLimit = new RateLimit();
+
+    private Admission admission = new Admission();
+
+    private History history = new History();
+
+    private Tracing tracing = new Tracing();
+
+    private Replication replication = new Replication();
+
     public Map<String, String> getUrls() {
         return urls;
     }
@@ -16,5 +40,674 @@ public class ExchangeRateProperties {
     public void setUrls(Map<String, String> urls) {
         this.urls = urls;
     }
-}
 
+    public Aggregation getAggregation() {
+        return aggregation;
+    }
+
+    public void setAggregation(Aggregation aggregation) {
+        this.aggregation = aggregation;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public void setCache(Cache cache) {
+        this.cache = cache;
+    }
+
+    public Resilience getResilience() {
+        return resilience;
+    }
+
+    public void setResilience(Resilience resilience) {
+        this.resilience = resilience;
+    }
+
+    public Http getHttp() {
+        return http;
+    }
+
+    public void setHttp(Http http) {
+        this.http = http;
+    }
+
+    public Triangulation getTriangulation() {
+        return triangulation;
+    }
+
+    public void setTriangulation(Triangulation triangulation) {
+        this.triangulation = triangulation;
+    }
+
+    public RateLimit getRateLimit() {
+        return rateLimit;
+    }
+
+    public void setRateLimit(RateLimit rateLimit) {
+        this.rateLimit = rateLimit;
+    }
+
+    public Admission getAdmission() {
+        return admission;
+    }
+
+    public void setAdmission(Admission admission) {
+        this.admission = admission;
+    }
+
+    public History getHistory() {
+        return history;
+    }
+
+    public void setHistory(History history) {
+        this.history = history;
+    }
+
+    public Tracing getTracing() {
+        return tracing;
+    }
+
+    public void setTracing(Tracing tracing) {
+        this.tracing = tracing;
+    }
+
+    public Replication getReplication() {
+        return replication;
+    }
+
+    public void setReplication(Replication replication) {
+        this.replication = replication;
+    }
+
+    public static class Aggregation {
+        private int quorum = 2;
+        private Duration providerTimeout = Duration.ofSeconds(10);
+
+        public int getQuorum() {
+            return quorum;
+        }
+
+        public void setQuorum(int quorum) {
+            this.quorum = quorum;
+        }
+
+        public Duration getProviderTimeout() {
+            return providerTimeout;
+        }
+
+        public void setProviderTimeout(Duration providerTimeout) {
+            this.providerTimeout = providerTimeout;
+        }
+    }
+
+    public static class Cache {
+        private long maximumSize = 1000;
+        private long maximumWeight = 0;
+        private long renderedMaximumSize = 10000;
+        private boolean staleWhileRevalidate = false;
+        private long maxStaleSeconds = 3600;
+        private RefreshAhead refreshAhead = new RefreshAhead();
+        private Snapshot snapshot = new Snapshot();
+
+        public long retentionSeconds(long expirySeconds) {
+            return staleWhileRevalidate ? expirySeconds + maxStaleSeconds : expirySeconds;
+        }
+
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public long getMaximumWeight() {
+            return maximumWeight;
+        }
+
+        public void setMaximumWeight(long maximumWeight) {
+            this.maximumWeight = maximumWeight;
+        }
+
+        public long getRenderedMaximumSize() {
+            return renderedMaximumSize;
+        }
+
+        public void setRenderedMaximumSize(long renderedMaximumSize) {
+            this.renderedMaximumSize = renderedMaximumSize;
+        }
+
+        public boolean isStaleWhileRevalidate() {
+            return staleWhileRevalidate;
+        }
+
+        public void setStaleWhileRevalidate(boolean staleWhileRevalidate) {
+            this.staleWhileRevalidate = staleWhileRevalidate;
+        }
+
+        public long getMaxStaleSeconds() {
+            return maxStaleSeconds;
+        }
+
+        public void setMaxStaleSeconds(long maxStaleSeconds) {
+            this.maxStaleSeconds = maxStaleSeconds;
+        }
+
+        public RefreshAhead getRefreshAhead() {
+            return refreshAhead;
+        }
+
+        public void setRefreshAhead(RefreshAhead refreshAhead) {
+            this.refreshAhead = refreshAhead;
+        }
+
+        public Snapshot getSnapshot() {
+            return snapshot;
+        }
+
+        public void setSnapshot(Snapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+    }
+
+    public static class RefreshAhead {
+        private boolean enabled = false;
+        private int topN = 20;
+        private long windowSeconds = 60;
+        private long intervalMillis = 30000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getTopN() {
+            return topN;
+        }
+
+        public void setTopN(int topN) {
+            this.topN = topN;
+        }
+
+        public long getWindowSeconds() {
+            return windowSeconds;
+        }
+
+        public void setWindowSeconds(long windowSeconds) {
+            this.windowSeconds = windowSeconds;
+        }
+
+        public long getIntervalMillis() {
+            return intervalMillis;
+        }
+
+        public void setIntervalMillis(long intervalMillis) {
+            this.intervalMillis = intervalMillis;
+        }
+    }
+
+    public static class Snapshot {
+        private boolean enabled = false;
+        private String path = "data/rate-cache.snapshot";
+        private long intervalMillis = 60000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public long getIntervalMillis() {
+            return intervalMillis;
+        }
+
+        public void setIntervalMillis(long intervalMillis) {
+            this.intervalMillis = intervalMillis;
+        }
+    }
+
+    public static class Resilience {
+        private int failureThreshold = 5;
+        private Duration openDuration = Duration.ofSeconds(30);
+        private Duration minTimeout = Duration.ofMillis(500);
+        private Duration maxTimeout = Duration.ofSeconds(5);
+        private double timeoutMultiplier = 3;
+        private boolean hedging = true;
+        private Duration minHedgeDelay = Duration.ofMillis(50);
+        private int minSamples = 32;
+
+        public int getFailureThreshold() {
+            return failureThreshold;
+        }
+
+        public void setFailureThreshold(int failureThreshold) {
+            this.failureThreshold = failureThreshold;
+        }
+
+        public Duration getOpenDuration() {
+            return openDuration;
+        }
+
+        public void setOpenDuration(Duration openDuration) {
+            this.openDuration = openDuration;
+        }
+
+        public Duration getMinTimeout() {
+            return minTimeout;
+        }
+
+        public void setMinTimeout(Duration minTimeout) {
+            this.minTimeout = minTimeout;
+        }
+
+        public Duration getMaxTimeout() {
+            return maxTimeout;
+        }
+
+        public void setMaxTimeout(Duration maxTimeout) {
+            this.maxTimeout = maxTimeout;
+        }
+
+        public double getTimeoutMultiplier() {
+            return timeoutMultiplier;
+        }
+
+        public void setTimeoutMultiplier(double timeoutMultiplier) {
+            this.timeoutMultiplier = timeoutMultiplier;
+        }
+
+        public boolean isHedging() {
+            return hedging;
+        }
+
+        public void setHedging(boolean hedging) {
+            this.hedging = hedging;
+        }
+
+        public Duration getMinHedgeDelay() {
+            return minHedgeDelay;
+        }
+
+        public void setMinHedgeDelay(Duration minHedgeDelay) {
+            this.minHedgeDelay = minHedgeDelay;
+        }
+
+        public int getMinSamples() {
+            return minSamples;
+        }
+
+        public void setMinSamples(int minSamples) {
+            this.minSamples = minSamples;
+        }
+    }
+
+    public static class Http {
+        private int maxConnections = 50;
+        private int pendingAcquireMaxCount = 500;
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(2);
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+        private Duration maxLifeTime = Duration.ofMinutes(5);
+        private Duration evictionInterval = Duration.ofSeconds(30);
+        private Duration connectTimeout = Duration.ofSeconds(2);
+        private boolean http2 = true;
+        private boolean compression = true;
+
+        public int getMaxConnections() {
+            return maxConnections;
+        }
+
+        public void setMaxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+        }
+
+        public int getPendingAcquireMaxCount() {
+            return pendingAcquireMaxCount;
+        }
+
+        public void setPendingAcquireMaxCount(int pendingAcquireMaxCount) {
+            this.pendingAcquireMaxCount = pendingAcquireMaxCount;
+        }
+
+        public Duration getPendingAcquireTimeout() {
+            return pendingAcquireTimeout;
+        }
+
+        public void setPendingAcquireTimeout(Duration pendingAcquireTimeout) {
+            this.pendingAcquireTimeout = pendingAcquireTimeout;
+        }
+
+        public Duration getMaxIdleTime() {
+            return maxIdleTime;
+        }
+
+        public void setMaxIdleTime(Duration maxIdleTime) {
+            this.maxIdleTime = maxIdleTime;
+        }
+
+        public Duration getMaxLifeTime() {
+            return maxLifeTime;
+        }
+
+        public void setMaxLifeTime(Duration maxLifeTime) {
+            this.maxLifeTime = maxLifeTime;
+        }
+
+        public Duration getEvictionInterval() {
+            return evictionInterval;
+        }
+
+        public void setEvictionInterval(Duration evictionInterval) {
+            this.evictionInterval = evictionInterval;
+        }
+
+        public Duration getConnectTimeout() {
+            return connectTimeout;
+        }
+
+        public void setConnectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+        }
+
+        public boolean isHttp2() {
+            return http2;
+        }
+
+        public void setHttp2(boolean http2) {
+            this.http2 = http2;
+        }
+
+        public boolean isCompression() {
+            return compression;
+        }
+
+        public void setCompression(boolean compression) {
+            this.compression = compression;
+        }
+    }
+
+    public static class Triangulation {
+        private boolean enabled = false;
+        private List<String> pivots = new ArrayList<>(List.of("usd", "eur"));
+        // worst-case relative rounding error a pivot-derived rate may carry before the base is fetched directly
+        private double maxRelativeError = 0.0001;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<String> getPivots() {
+            return pivots;
+        }
+
+        public void setPivots(List<String> pivots) {
+            this.pivots = pivots;
+        }
+
+        public double getMaxRelativeError() {
+            return maxRelativeError;
+        }
+
+        public void setMaxRelativeError(double maxRelativeError) {
+            this.maxRelativeError = maxRelativeError;
+        }
+    }
+
+    public static class RateLimit {
+        private boolean enabled = false;
+        private double requestsPerSecond = 20;
+        private int burst = 40;
+        private long maxClients = 100000;
+        private String keyHeader = "X-API-Key";
+        private List<String> apiKeys = new ArrayList<>();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getRequestsPerSecond() {
+            return requestsPerSecond;
+        }
+
+        public void setRequestsPerSecond(double requestsPerSecond) {
+            this.requestsPerSecond = requestsPerSecond;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        public void setBurst(int burst) {
+            this.burst = burst;
+        }
+
+        public long getMaxClients() {
+            return maxClients;
+        }
+
+        public void setMaxClients(long maxClients) {
+            this.maxClients = maxClients;
+        }
+
+        public String getKeyHeader() {
+            return keyHeader;
+        }
+
+        public void setKeyHeader(String keyHeader) {
+            this.keyHeader = keyHeader;
+        }
+
+        public List<String> getApiKeys() {
+            return apiKeys;
+        }
+
+        public void setApiKeys(List<String> apiKeys) {
+            this.apiKeys = apiKeys;
+        }
+    }
+
+    public static class Admission {
+        private int maxInFlightFetches = 16;
+        private int maxQueuedFetches = 64;
+        private Duration queueTimeout = Duration.ofSeconds(2);
+
+        public int getMaxInFlightFetches() {
+            return maxInFlightFetches;
+        }
+
+        public void setMaxInFlightFetches(int maxInFlightFetches) {
+            this.maxInFlightFetches = maxInFlightFetches;
+        }
+
+        public int getMaxQueuedFetches() {
+            return maxQueuedFetches;
+        }
+
+        public void setMaxQueuedFetches(int maxQueuedFetches) {
+            this.maxQueuedFetches = maxQueuedFetches;
+        }
+
+        public Duration getQueueTimeout() {
+            return queueTimeout;
+        }
+
+        public void setQueueTimeout(Duration queueTimeout) {
+            this.queueTimeout = queueTimeout;
+        }
+    }
+
+    public static class History {
+        private boolean enabled = false;
+        private String path = "data/history";
+        private List<String> bases = new ArrayList<>(List.of("usd", "eur"));
+        private int backfillDays = 365;
+        private Duration backfillTimeout = Duration.ofSeconds(60);
+        private int maxRangeDays = 3660;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public List<String> getBases() {
+            return bases;
+        }
+
+        public void setBases(List<String> bases) {
+            this.bases = bases;
+        }
+
+        public int getBackfillDays() {
+            return backfillDays;
+        }
+
+        public void setBackfillDays(int backfillDays) {
+            this.backfillDays = backfillDays;
+        }
+
+        public Duration getBackfillTimeout() {
+            return backfillTimeout;
+        }
+
+        public void setBackfillTimeout(Duration backfillTimeout) {
+            this.backfillTimeout = backfillTimeout;
+        }
+
+        public int getMaxRangeDays() {
+            return maxRangeDays;
+        }
+
+        public void setMaxRangeDays(int maxRangeDays) {
+            this.maxRangeDays = maxRangeDays;
+        }
+    }
+
+    public static class Tracing {
+        private boolean enabled = true;
+        private Duration slowThreshold = Duration.ofMillis(500);
+        private double slowLogsPerSecond = 1;
+        private int slowestRetained = 50;
+        private Duration window = Duration.ofMinutes(10);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getSlowThreshold() {
+            return slowThreshold;
+        }
+
+        public void setSlowThreshold(Duration slowThreshold) {
+            this.slowThreshold = slowThreshold;
+        }
+
+        public double getSlowLogsPerSecond() {
+            return slowLogsPerSecond;
+        }
+
+        public void setSlowLogsPerSecond(double slowLogsPerSecond) {
+            this.slowLogsPerSecond = slowLogsPerSecond;
+        }
+
+        public int getSlowestRetained() {
+            return slowestRetained;
+        }
+
+        public void setSlowestRetained(int slowestRetained) {
+            this.slowestRetained = slowestRetained;
+        }
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+    }
+
+    public static class Replication {
+        private boolean enabled = false;
+        private String selfUrl;
+        private List<String> peers = new ArrayList<>();
+        private int virtualNodes = 160;
+        private Duration timeout = Duration.ofSeconds(12);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getSelfUrl() {
+            return selfUrl;
+        }
+
+        public void setSelfUrl(String selfUrl) {
+            this.selfUrl = selfUrl;
+        }
+
+        public List<String> getPeers() {
+            return peers;
+        }
+
+        public void setPeers(List<String> peers) {
+            this.peers = peers;
+        }
+
+        public int getVirtualNodes() {
+            return virtualNodes;
+        }
+
+        public void setVirtualNodes(int virtualNodes) {
+            this.virtualNodes = virtualNodes;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+    }
+}
@@ -1,15 +1,47 @@
 package org.example.exchange.config;
 
+import io.netty.channel.ChannelOption;
+import org.example.exchange.metrics.UpstreamMetrics;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 @Configuration
 public class WebClientConfig {
 
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider upstreamConnectionProvider(ExchangeRateProperties exchangeRateProperties) {
+        ExchangeRateProperties.Http http = exchangeRateProperties.getHttp();
+        return ConnectionProvider.builder("upstream")
+                .maxConnections(http.getMaxConnections())
+                .pendingAcquireMaxCount(http.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(http.getPendingAcquireTimeout())
+                .maxIdleTime(http.getMaxIdleTime())
+                .maxLifeTime(http.getMaxLifeTime())
+                .evictInBackground(http.getEvictionInterval())
+                .metrics(true)
+                .build();
+    }
+
     @Bean
-    public WebClient webClient(WebClient.Builder webClientBuilder) {
-        return webClientBuilder.build();
+    public WebClient webClient(WebClient.Builder webClientBuilder, UpstreamMetrics upstreamMetrics,
+                               ConnectionProvider upstreamConnectionProvider, ExchangeRateProperties exchangeRateProperties) {
+        ExchangeRateProperties.Http http = exchangeRateProperties.getHttp();
+        HttpClient httpClient = HttpClient.create(upstreamConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) http.getConnectTimeout().toMillis())
+                .keepAlive(true)
+                .compress(http.isCompression());
+        if (http.isHttp2()) {
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+
+        return webClientBuilder
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .filter(upstreamMetrics.exchangeFilter())
+                .build();
     }
 }
-
@@ -0,0 +1,22 @@
+package org.example.exchange.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The default build carries both web stacks, so the servlet stack (Tomcat) is used and the reactive
+ * auto-configuration would also prefer Tomcat. In reactive mode ({@code spring.main.web-application-type=reactive})
+ * this pins the server to Netty, the runtime the upstream WebClient already uses, so requests are handled end to
+ * end on event loops. A build with {@code -Dreactive} leaves Tomcat out altogether.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class WebServerConfig {
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
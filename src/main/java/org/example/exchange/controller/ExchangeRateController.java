@@ -1,14 +1,23 @@
 package org.example.exchange.controller;
 
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotEmpty;
+import org.example.exchange.limit.AdmissionRejectedException;
+import org.example.exchange.model.BatchRateRequest;
 import org.example.exchange.service.ExchangeRateService;
+import org.example.exchange.trace.RequestTracer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -18,20 +27,81 @@ import java.util.stream.Collectors;
 @Validated
 public class ExchangeRateController {
 
+    private static final Duration STREAM_HEARTBEAT = Duration.ofSeconds(15);
+
     @Autowired
     private ExchangeRateService exchangeRateService;
 
+    @Autowired
+    private RequestTracer requestTracer;
+
     @GetMapping("/{baseCur}")
-    public Mono<ResponseEntity<Map<String, Object>>> getExchangeRates(
+    public Mono<ResponseEntity<Object>> getExchangeRates(
             @PathVariable @NotEmpty String baseCur,
-            @RequestParam @NotEmpty List<String> symbols) {
+            @RequestParam @NotEmpty List<String> symbols,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
         String normalizedBaseCur = baseCur.toLowerCase();
         List<String> normalizedSymbols = symbols.stream().map(String::toLowerCase).collect(Collectors.toList());
 
-        return exchangeRateService.getAverageExchangeRates(normalizedBaseCur, normalizedSymbols)
-                .map(ResponseEntity::ok)
+        Mono<ResponseEntity<Object>> response = exchangeRateService.getRenderedExchangeRates(normalizedBaseCur, normalizedSymbols)
+                .map(rendered -> {
+                    if (ifNoneMatch != null && matches(ifNoneMatch, rendered.eTag())) {
+                        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(rendered.eTag()).build();
+                    }
+                    return ResponseEntity.ok()
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .eTag(rendered.eTag())
+                            .<Object>body(rendered.body());
+                })
+                .onErrorResume(AdmissionRejectedException.class, ex -> Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .body(Map.of("error", ex.getMessage()))))
                 .onErrorResume(ex -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                         .body(Map.of("error", "Failed to query the exchange rate: " + ex.getMessage()))));
+        return requestTracer.trace("GET /exchangeRates/" + normalizedBaseCur, response, ExchangeRateController::statusOf);
+    }
+
+    @PostMapping("/batch")
+    public Mono<ResponseEntity<Map<String, Object>>> getBatchExchangeRates(@RequestBody @Valid BatchRateRequest request) {
+        Mono<ResponseEntity<Map<String, Object>>> response = exchangeRateService.getBatchExchangeRates(request.getItems(), request.getPivot())
+                .map(results -> ResponseEntity.ok(Map.<String, Object>of("results", results)))
+                .onErrorResume(ex -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(Map.of("error", "Failed to query the exchange rates: " + ex.getMessage()))));
+        return requestTracer.trace("POST /exchangeRates/batch", response, ExchangeRateController::statusOf);
+    }
+
+    @GetMapping(value = "/{baseCur}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Map<String, Object>>> streamExchangeRates(
+            @PathVariable @NotEmpty String baseCur,
+            @RequestParam @NotEmpty List<String> symbols) {
+
+        String normalizedBaseCur = baseCur.toLowerCase();
+        List<String> normalizedSymbols = symbols.stream().map(String::toLowerCase).collect(Collectors.toList());
+
+        Flux<ServerSentEvent<Map<String, Object>>> updates = exchangeRateService
+                .streamExchangeRates(normalizedBaseCur, normalizedSymbols)
+                .map(delta -> ServerSentEvent.builder(delta).event("rates").build())
+                .onErrorResume(ex -> Mono.just(ServerSentEvent.<Map<String, Object>>builder(
+                        Map.of("error", "Failed to query the exchange rate: " + ex.getMessage())).event("error").build()));
+        Flux<ServerSentEvent<Map<String, Object>>> heartbeats = Flux.interval(STREAM_HEARTBEAT)
+                .map(tick -> ServerSentEvent.<Map<String, Object>>builder().comment("keep-alive").build());
+
+        return updates.publish(shared -> Flux.merge(shared, heartbeats.takeUntilOther(shared.ignoreElements())));
+    }
+
+    private static String statusOf(ResponseEntity<?> response) {
+        return String.valueOf(response.getStatusCode().value());
+    }
+
+    private static boolean matches(String ifNoneMatch, String eTag) {
+        String opaqueTag = eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || (trimmed.startsWith("W/") ? trimmed.substring(2) : trimmed).equals(opaqueTag)) {
+                return true;
+            }
+        }
+        return false;
     }
 }
@@ -1,12 +1,18 @@
 package org.example.exchange.controller;
 
 import org.example.exchange.aspect.ApiMetricsAspect;
+import org.example.exchange.cache.RateCache;
+import org.example.exchange.limit.ClientRateLimiter;
+import org.example.exchange.limit.UpstreamAdmission;
+import org.example.exchange.replication.PeerReplication;
+import org.example.exchange.utils.WebClientUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.HashMap;
 import java.util.Map;
 
 @RestController
@@ -16,9 +22,32 @@ public class MetricsController {
     @Autowired
     private ApiMetricsAspect apiMetricsAspect;
 
+    @Autowired
+    private RateCache rateCache;
+
+    @Autowired
+    private WebClientUtil webClientUtil;
+
+    @Autowired
+    private UpstreamAdmission upstreamAdmission;
+
+    @Autowired
+    private ClientRateLimiter clientRateLimiter;
+
+    @Autowired(required = false)
+    private PeerReplication peerReplication;
+
     @GetMapping
     public ResponseEntity<Map<String, Object>> getMetrics() {
-        return ResponseEntity.ok(apiMetricsAspect.getWebClientMetrics());
+        Map<String, Object> metrics = new HashMap<>(apiMetricsAspect.getWebClientMetrics());
+        metrics.put("cache", rateCache.getStatistics());
+        metrics.put("upstreams", webClientUtil.getUpstreamHealth());
+        metrics.put("admission", upstreamAdmission.getStatistics());
+        metrics.put("rateLimit", clientRateLimiter.getStatistics());
+        if (peerReplication != null) {
+            metrics.put("replication", peerReplication.getStatistics());
+        }
+        return ResponseEntity.ok(metrics);
     }
 
 }
@@ -0,0 +1,66 @@
+package org.example.exchange.controller;
+
+import jakarta.validation.constraints.NotEmpty;
+import org.example.exchange.config.ExchangeRateProperties;
+import org.example.exchange.history.RateHistoryStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@RestController
+@RequestMapping("/exchangeRates")
+@Validated
+@ConditionalOnProperty(value = "exchange-rate.history.enabled", havingValue = "true")
+public class RateHistoryController {
+
+    @Autowired
+    private RateHistoryStore rateHistoryStore;
+
+    @Autowired
+    private ExchangeRateProperties exchangeRateProperties;
+
+    /**
+     * Rates per date and symbol, with a parallel {@code sources} map telling live quorum averages from days
+     * backfilled from frankfurter alone.
+     */
+    @GetMapping("/{baseCur}/history")
+    public ResponseEntity<Map<String, Object>> getHistory(
+            @PathVariable @NotEmpty String baseCur,
+            @RequestParam @NotEmpty List<String> symbols,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        LocalDate end = to != null ? to : from;
+        if (end.isBefore(from) || ChronoUnit.DAYS.between(from, end) > exchangeRateProperties.getHistory().getMaxRangeDays()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid date range " + from + ".." + end));
+        }
+
+        String normalizedBaseCur = baseCur.toLowerCase();
+        Map<String, Map<String, BigDecimal>> byDate = new TreeMap<>();
+        Map<String, Map<String, String>> sources = new TreeMap<>();
+        for (String symbol : symbols) {
+            String normalizedSymbol = symbol.toLowerCase();
+            rateHistoryStore.range(normalizedBaseCur, normalizedSymbol, from, end).forEach((date, point) -> {
+                byDate.computeIfAbsent(date.toString(), key -> new TreeMap<>()).put(normalizedSymbol, point.rate());
+                sources.computeIfAbsent(date.toString(), key -> new TreeMap<>())
+                        .put(normalizedSymbol, point.source().name().toLowerCase());
+            });
+        }
+        return ResponseEntity.ok(Map.of("base", normalizedBaseCur, "from", from.toString(), "to", end.toString(),
+                "rates", byDate, "sources", sources));
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.exchange.controller;
+
+import org.example.exchange.cache.RateCache;
+import org.example.exchange.replication.PeerReplication;
+import org.example.exchange.service.ExchangeRateService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * Serves cached rate tables to peers. A fresh copy is always served as is; only the owner of a base fetches it
+ * from upstream on a peer's behalf, and only once its copy has expired. Other nodes answer from a fresh copy or
+ * not at all, so a disagreement about ownership cannot loop. A peer's request counts as an access, so bases only
+ * peers ask for still rank for refresh-ahead. The path is rate limited like the rate API, except for peers.
+ */
+@RestController
+@ConditionalOnProperty(value = "exchange-rate.replication.enabled", havingValue = "true")
+public class ReplicationController {
+
+    @Autowired
+    private ExchangeRateService exchangeRateService;
+
+    @Autowired
+    private RateCache rateCache;
+
+    @Autowired
+    private PeerReplication peerReplication;
+
+    @Value("${cache-expiry-seconds}")
+    private int cacheExpirySeconds;
+
+    @GetMapping(value = PeerReplication.PATH + "{base}", produces = "application/octet-stream")
+    public Mono<ResponseEntity<byte[]>> getRateTable(@PathVariable String base) {
+        String normalizedBase = base.toLowerCase();
+        RateCache.Entry cached = rateCache.get(normalizedBase);
+        if (cached != null && cached.isFresh(cacheExpirySeconds)) {
+            return Mono.just(serve(normalizedBase, cached));
+        }
+        if (!peerReplication.isOwner(normalizedBase)) {
+            return Mono.just(ResponseEntity.notFound().build());
+        }
+        return exchangeRateService.refreshRateTable(normalizedBase)
+                .map(rateTable -> serve(normalizedBase, cached == null ? rateCache.get(normalizedBase) : rateCache.peek(normalizedBase)))
+                .onErrorReturn(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+
+    private ResponseEntity<byte[]> serve(String base, RateCache.Entry entry) {
+        peerReplication.recordServed();
+        return ResponseEntity.ok()
+                .contentType(PeerReplication.MEDIA_TYPE)
+                .body(PeerReplication.encode(base, entry));
+    }
+}
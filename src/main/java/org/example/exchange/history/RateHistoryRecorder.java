@@ -0,0 +1,109 @@
+package org.example.exchange.history;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.exchange.cache.RateCache;
+import org.example.exchange.config.ExchangeRateProperties;
+import org.example.exchange.provider.FrankfurterRateProvider;
+import org.example.exchange.utils.WebClientUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Fills the history store: every table stored for a recorded base is written as today's rate, and at startup the
+ * weekdays of the backfill window that have no record yet, including gaps left while the service was down, are
+ * fetched from frankfurter's time series and marked as backfilled. Live records only arrive when a base's table is loaded; with
+ * refresh-ahead enabled, subscribing to its updates keeps it on that schedule, otherwise it is recorded when requested.
+ */
+@Component
+@ConditionalOnProperty(value = "exchange-rate.history.enabled", havingValue = "true")
+public class RateHistoryRecorder {
+
+    private static final Logger log = LoggerFactory.getLogger(RateHistoryRecorder.class);
+
+    @Autowired
+    private RateHistoryStore rateHistoryStore;
+
+    @Autowired
+    private RateCache rateCache;
+
+    @Autowired
+    private ExchangeRateProperties exchangeRateProperties;
+
+    @Autowired
+    private ObjectProvider<FrankfurterRateProvider> frankfurterRateProvider;
+
+    private final Disposable.Composite subscriptions = Disposables.composite();
+
+    @PostConstruct
+    public void start() {
+        for (String base : rateHistoryStore.getRecordedBases()) {
+            subscriptions.add(rateCache.updates(base).subscribe(
+                    rateTable -> rateHistoryStore.record(base, rateTable, LocalDate.now(ZoneOffset.UTC))));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        FrankfurterRateProvider frankfurter = frankfurterRateProvider.getIfAvailable();
+        if (frankfurter == null) {
+            return;
+        }
+        LocalDate to = LocalDate.now(ZoneOffset.UTC);
+        LocalDate from = to.minusDays(exchangeRateProperties.getHistory().getBackfillDays());
+
+        subscriptions.add(Flux.fromIterable(rateHistoryStore.getRecordedBases())
+                .concatMap(base -> Flux.fromIterable(rateHistoryStore.missingRanges(base, from, to))
+                        .concatMap(range -> frankfurter.fetchTimeSeries(base, range.from(), range.to())
+                                .doOnNext(response -> store(base, response))
+                                .onErrorResume(e -> {
+                                    log.warn("History backfill of {} from {} to {} failed: {}", base, range.from(), range.to(), e.getMessage());
+                                    return Mono.empty();
+                                })))
+                .subscribe());
+    }
+
+    void store(String base, Map<String, Object> response) {
+        Map<String, NavigableMap<LocalDate, BigDecimal>> bySymbol = new HashMap<>();
+        if (response.get("rates") instanceof Map<?, ?> days) {
+            days.forEach((date, rates) -> {
+                LocalDate day = LocalDate.parse(date.toString());
+                WebClientUtil.toRates(rates).forEach((symbol, rate) ->
+                        bySymbol.computeIfAbsent(symbol, key -> new TreeMap<>()).put(day, rate));
+            });
+        }
+
+        for (Map.Entry<String, NavigableMap<LocalDate, BigDecimal>> series : bySymbol.entrySet()) {
+            try {
+                rateHistoryStore.recordAll(base, series.getKey(), series.getValue());
+            } catch (IOException e) {
+                log.warn("Failed to backfill {}/{}: {}", base, series.getKey(), e.getMessage());
+            }
+        }
+        log.info("Backfilled {} currencies for {} from frankfurter", bySymbol.size(), base);
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscriptions.dispose();
+    }
+}
@@ -0,0 +1,244 @@
+package org.example.exchange.history;
+
+import jakarta.annotation.PreDestroy;
+import org.example.exchange.config.ExchangeRateProperties;
+import org.example.exchange.model.FixedPoint;
+import org.example.exchange.model.RateTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Daily averaged rates per currency pair, one {@link RateSeries} file per recorded base and symbol.
+ * Pairs that were not recorded directly are crossed through a recorded base, day by day.
+ * <p>
+ * Every point keeps its {@link Source}: live points are the providers' quorum average, while backfilled ones come
+ * from frankfurter alone, as it is the only provider with a time series. The two can differ slightly for the same
+ * day, so the source is reported with each rate rather than presenting the series as uniform.
+ */
+@Component
+@ConditionalOnProperty(value = "exchange-rate.history.enabled", havingValue = "true")
+public class RateHistoryStore {
+
+    private static final Logger log = LoggerFactory.getLogger(RateHistoryStore.class);
+
+    private static final Pattern CURRENCY_CODE = Pattern.compile("[a-z0-9]{1,16}");
+
+    private final Path directory;
+    private final List<String> recordedBases;
+    private final Map<String, RateSeries> series = new ConcurrentHashMap<>();
+
+    public RateHistoryStore(ExchangeRateProperties exchangeRateProperties) throws IOException {
+        ExchangeRateProperties.History history = exchangeRateProperties.getHistory();
+        this.directory = Paths.get(history.getPath());
+        this.recordedBases = history.getBases();
+        Files.createDirectories(directory);
+    }
+
+    public record DateRange(LocalDate from, LocalDate to) {
+    }
+
+    /**
+     * Where a point came from. The codes are stored in the series files and must not change.
+     */
+    public enum Source {
+        LIVE(1),
+        BACKFILL(2);
+
+        private final int code;
+
+        Source(int code) {
+            this.code = code;
+        }
+
+        static Source of(int code) {
+            return code == BACKFILL.code ? BACKFILL : LIVE;
+        }
+    }
+
+    public record Point(BigDecimal rate, Source source) {
+    }
+
+    public List<String> getRecordedBases() {
+        return recordedBases;
+    }
+
+    /**
+     * Weekday runs from {@code from} to {@code to} inclusive on which nothing was recorded for {@code base}, whether
+     * never backfilled or missed while the service was down. Weekends neither open nor close a run, since no
+     * reference rates are published on them.
+     */
+    public List<DateRange> missingRanges(String base, LocalDate from, LocalDate to) {
+        Set<Long> recorded = new HashSet<>();
+        if (CURRENCY_CODE.matcher(base).matches()) {
+            try (var files = Files.newDirectoryStream(directory, base + "-*.series")) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    RateSeries pair = series(base, name.substring(base.length() + 1, name.length() - ".series".length()), false);
+                    if (pair != null) {
+                        pair.forEachInRange(from.toEpochDay(), to.toEpochDay(), (day, rate, source) -> recorded.add(day));
+                    }
+                }
+            } catch (IOException | UncheckedIOException e) {
+                log.warn("Failed to read recorded days of {}: {}", base, e.getMessage());
+            }
+        }
+
+        List<DateRange> missing = new ArrayList<>();
+        LocalDate runStart = null;
+        LocalDate runEnd = null;
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            if (day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                continue;
+            }
+            if (!recorded.contains(day.toEpochDay())) {
+                runStart = runStart == null ? day : runStart;
+                runEnd = day;
+            } else if (runStart != null) {
+                missing.add(new DateRange(runStart, runEnd));
+                runStart = null;
+            }
+        }
+        if (runStart != null) {
+            missing.add(new DateRange(runStart, runEnd));
+        }
+        return missing;
+    }
+
+    public void record(String base, RateTable rateTable, LocalDate date) {
+        rateTable.forEachScaledRate((symbol, rate) -> {
+            try {
+                RateSeries pair = series(base, symbol, true);
+                if (pair != null) {
+                    pair.put(date.toEpochDay(), rate, Source.LIVE.code);
+                }
+            } catch (IOException | UncheckedIOException e) {
+                log.warn("Failed to record {}/{} for {}: {}", base, symbol, date, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Records backfilled days, leaving days that already have a record untouched.
+     */
+    public void recordAll(String base, String symbol, NavigableMap<LocalDate, BigDecimal> rates) throws IOException {
+        RateSeries pair = series(base, symbol, true);
+        if (pair == null) {
+            return;
+        }
+        NavigableMap<Long, Long> scaled = new TreeMap<>();
+        rates.forEach((date, rate) -> {
+            BigDecimal rounded = rate.setScale(FixedPoint.RATE_SCALE, RoundingMode.HALF_UP);
+            if (rounded.unscaledValue().bitLength() < Long.SIZE) {
+                scaled.put(date.toEpochDay(), rounded.unscaledValue().longValue());
+            }
+        });
+        pair.putAll(scaled, Source.BACKFILL.code);
+    }
+
+    /**
+     * Rates from {@code from} to {@code to} inclusive, keyed by date. When the range is a single day without
+     * a record (a weekend or holiday), the last earlier record is returned instead. A crossed point is live only
+     * if both its legs are.
+     */
+    public NavigableMap<LocalDate, Point> range(String base, String symbol, LocalDate from, LocalDate to) {
+        RateSeries direct = series(base, symbol, false);
+        if (direct != null) {
+            return read(direct, from, to);
+        }
+        for (String pivot : recordedBases) {
+            if (pivot.equals(base)) {
+                continue;
+            }
+            RateSeries baseLeg = series(pivot, base, false);
+            if (baseLeg == null) {
+                continue;
+            }
+            NavigableMap<LocalDate, Point> divisors = read(baseLeg, from, to);
+            NavigableMap<LocalDate, Point> dividends;
+            if (pivot.equals(symbol)) {
+                dividends = new TreeMap<>();
+                divisors.forEach((date, point) -> dividends.put(date, new Point(BigDecimal.ONE, point.source())));
+            } else {
+                RateSeries symbolLeg = series(pivot, symbol, false);
+                if (symbolLeg == null) {
+                    continue;
+                }
+                dividends = read(symbolLeg, from, to);
+            }
+            return cross(dividends, divisors);
+        }
+        return new TreeMap<>();
+    }
+
+    @PreDestroy
+    public void flush() {
+        series.values().forEach(RateSeries::force);
+    }
+
+    private static NavigableMap<LocalDate, Point> read(RateSeries pair, LocalDate from, LocalDate to) {
+        NavigableMap<LocalDate, Point> rates = new TreeMap<>();
+        RateSeries.RecordVisitor collect = (day, rate, source) -> rates.put(LocalDate.ofEpochDay(day),
+                new Point(FixedPoint.toBigDecimal(rate, FixedPoint.RATE_SCALE), Source.of(source)));
+        pair.forEachInRange(from.toEpochDay(), to.toEpochDay(), collect);
+        if (rates.isEmpty() && from.equals(to)) {
+            pair.floor(to.toEpochDay(), collect);
+        }
+        return rates;
+    }
+
+    private static NavigableMap<LocalDate, Point> cross(NavigableMap<LocalDate, Point> dividends,
+                                                        NavigableMap<LocalDate, Point> divisors) {
+        NavigableMap<LocalDate, Point> crossed = new TreeMap<>();
+        dividends.forEach((date, dividend) -> {
+            Point divisor = divisors.get(date);
+            if (divisor != null && divisor.rate().signum() > 0) {
+                crossed.put(date, new Point(dividend.rate().divide(divisor.rate(), FixedPoint.RATE_SCALE, RoundingMode.HALF_UP),
+                        dividend.source() == Source.LIVE && divisor.source() == Source.LIVE ? Source.LIVE : Source.BACKFILL));
+            }
+        });
+        return crossed;
+    }
+
+    private RateSeries series(String base, String symbol, boolean create) {
+        if (!CURRENCY_CODE.matcher(base).matches() || !CURRENCY_CODE.matcher(symbol).matches() || base.equals(symbol)) {
+            return null;
+        }
+        String key = base + "-" + symbol;
+        RateSeries pair = series.get(key);
+        if (pair == null) {
+            Path path = directory.resolve(key + ".series");
+            if (!create && !Files.exists(path)) {
+                return null;
+            }
+            pair = series.computeIfAbsent(key, k -> {
+                try {
+                    return RateSeries.open(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        return pair;
+    }
+}
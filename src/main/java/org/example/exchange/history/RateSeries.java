@@ -0,0 +1,237 @@
+package org.example.exchange.history;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Date-ordered rates of one currency pair in a memory-mapped file: a 16-byte header (magic, record count)
+ * followed by fixed 16-byte records of epoch day (int), source (int) and rate scaled to six decimals. Because
+ * records are sorted and fixed-size, the file is its own date index and lookups are binary searches over the mapping.
+ * <p>
+ * Writers are serialized per series; readers never lock. New days are appended past the published count
+ * before a new view with the larger count is published, and the rare out-of-order merge is written to a
+ * new file that replaces the mapping atomically, so readers always see a consistent view.
+ */
+final class RateSeries {
+
+    private static final long MAGIC = 0x5248535332L;
+    private static final int HEADER_BYTES = 16;
+    private static final int RECORD_BYTES = 16;
+    private static final int INITIAL_CAPACITY = 512;
+
+    @FunctionalInterface
+    interface RecordVisitor {
+        void visit(long epochDay, long rate, int source);
+    }
+
+    private record View(MappedByteBuffer buffer, int capacity, int count) {
+    }
+
+    private record Point(long rate, int source) {
+    }
+
+    private final Path path;
+    private volatile View view;
+
+    private RateSeries(Path path, View view) {
+        this.path = path;
+        this.view = view;
+    }
+
+    static RateSeries open(Path path) throws IOException {
+        if (Files.exists(path)) {
+            long size = Files.size(path);
+            if (size >= HEADER_BYTES) {
+                int capacity = (int) ((size - HEADER_BYTES) / RECORD_BYTES);
+                MappedByteBuffer buffer = map(path, capacity);
+                long storedCount = buffer.getLong(8);
+                if (buffer.getLong(0) == MAGIC && storedCount >= 0 && storedCount <= capacity) {
+                    return new RateSeries(path, new View(buffer, capacity, (int) storedCount));
+                }
+            }
+            Files.delete(path);
+        }
+        MappedByteBuffer buffer = map(path, INITIAL_CAPACITY);
+        buffer.putLong(0, MAGIC);
+        buffer.putLong(8, 0);
+        return new RateSeries(path, new View(buffer, INITIAL_CAPACITY, 0));
+    }
+
+    int size() {
+        return view.count();
+    }
+
+    /**
+     * Records {@code rate} from {@code source} for {@code epochDay}, replacing an existing value for that day.
+     */
+    synchronized void put(long epochDay, long rate, int source) throws IOException {
+        int n = view.count();
+        ByteBuffer buffer = view.buffer();
+        if (n > 0) {
+            long lastDay = dayAt(buffer, n - 1);
+            if (lastDay == epochDay) {
+                if (rateAt(buffer, n - 1) != rate || sourceAt(buffer, n - 1) != source) {
+                    write(buffer, n - 1, epochDay, new Point(rate, source));
+                }
+                return;
+            }
+            if (lastDay > epochDay) {
+                TreeMap<Long, Point> merged = existing(buffer, n);
+                merged.put(epochDay, new Point(rate, source));
+                rewrite(merged);
+                return;
+            }
+        }
+        View grown = ensureCapacity(n + 1);
+        write(grown.buffer(), n, epochDay, new Point(rate, source));
+        publish(grown, n + 1);
+    }
+
+    /**
+     * Merges many days from one source at once, as a backfill does. Existing days keep their recorded value.
+     */
+    synchronized void putAll(NavigableMap<Long, Long> rates, int source) throws IOException {
+        if (rates.isEmpty()) {
+            return;
+        }
+        int n = view.count();
+        ByteBuffer buffer = view.buffer();
+        if (n == 0 || rates.firstKey() > dayAt(buffer, n - 1)) {
+            View grown = ensureCapacity(n + rates.size());
+            int i = n;
+            for (var rate : rates.entrySet()) {
+                write(grown.buffer(), i, rate.getKey(), new Point(rate.getValue(), source));
+                i++;
+            }
+            publish(grown, i);
+            return;
+        }
+
+        TreeMap<Long, Point> merged = existing(buffer, n);
+        rates.forEach((day, rate) -> merged.putIfAbsent(day, new Point(rate, source)));
+        rewrite(merged);
+    }
+
+    /**
+     * Visits every record with {@code from <= day <= to} in date order.
+     */
+    void forEachInRange(long fromDay, long toDay, RecordVisitor visitor) {
+        View current = view;
+        ByteBuffer buffer = current.buffer();
+        for (int i = lowerBound(buffer, current.count(), fromDay); i < current.count(); i++) {
+            long day = dayAt(buffer, i);
+            if (day > toDay) {
+                return;
+            }
+            visitor.visit(day, rateAt(buffer, i), sourceAt(buffer, i));
+        }
+    }
+
+    /**
+     * Visits the last record on or before {@code epochDay}, if any.
+     */
+    boolean floor(long epochDay, RecordVisitor visitor) {
+        View current = view;
+        int index = lowerBound(current.buffer(), current.count(), epochDay + 1) - 1;
+        if (index < 0) {
+            return false;
+        }
+        visitor.visit(dayAt(current.buffer(), index), rateAt(current.buffer(), index), sourceAt(current.buffer(), index));
+        return true;
+    }
+
+    void force() {
+        view.buffer().force();
+    }
+
+    private static int lowerBound(ByteBuffer buffer, int n, long epochDay) {
+        int low = 0;
+        int high = n;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (dayAt(buffer, mid) < epochDay) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private View ensureCapacity(int required) throws IOException {
+        View current = view;
+        if (required <= current.capacity()) {
+            return current;
+        }
+        int capacity = Math.max(required, current.capacity() * 2);
+        return new View(map(path, capacity), capacity, current.count());
+    }
+
+    private void publish(View written, int newCount) {
+        written.buffer().putLong(8, newCount);
+        view = new View(written.buffer(), written.capacity(), newCount);
+    }
+
+    private static TreeMap<Long, Point> existing(ByteBuffer buffer, int n) {
+        TreeMap<Long, Point> records = new TreeMap<>();
+        for (int i = 0; i < n; i++) {
+            records.put(dayAt(buffer, i), new Point(rateAt(buffer, i), sourceAt(buffer, i)));
+        }
+        return records;
+    }
+
+    private void rewrite(NavigableMap<Long, Point> rates) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.deleteIfExists(temp);
+        int capacity = Math.max(INITIAL_CAPACITY, rates.size() * 2);
+        MappedByteBuffer buffer = map(temp, capacity);
+        int i = 0;
+        for (var rate : rates.entrySet()) {
+            write(buffer, i, rate.getKey(), rate.getValue());
+            i++;
+        }
+        buffer.putLong(0, MAGIC);
+        buffer.putLong(8, i);
+        buffer.force();
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        view = new View(buffer, capacity, i);
+    }
+
+    private static MappedByteBuffer map(Path path, int capacity) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long bytes = HEADER_BYTES + (long) capacity * RECORD_BYTES;
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        }
+    }
+
+    private static int offset(int index) {
+        return HEADER_BYTES + index * RECORD_BYTES;
+    }
+
+    private static void write(ByteBuffer buffer, int index, long epochDay, Point point) {
+        buffer.putInt(offset(index), (int) epochDay);
+        buffer.putInt(offset(index) + 4, point.source());
+        buffer.putLong(offset(index) + 8, point.rate());
+    }
+
+    private static long dayAt(ByteBuffer buffer, int index) {
+        return buffer.getInt(offset(index));
+    }
+
+    private static int sourceAt(ByteBuffer buffer, int index) {
+        return buffer.getInt(offset(index) + 4);
+    }
+
+    private static long rateAt(ByteBuffer buffer, int index) {
+        return buffer.getLong(offset(index) + 8);
+    }
+}
@@ -0,0 +1,11 @@
+package org.example.exchange.limit;
+
+/**
+ * Thrown when an upstream fetch is shed because the in-flight cap and its wait queue are full.
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+    public AdmissionRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,124 @@
+package org.example.exchange.limit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.example.exchange.config.ExchangeRateProperties;
+import org.example.exchange.replication.PeerReplication;
+import org.example.exchange.utils.TokenBucket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One token bucket per API key, or per client address for anonymous callers. Only keys from the configured
+ * set get their own bucket; any other key is ignored, so minting a fresh key per request neither resets the
+ * caller's burst nor adds buckets. Buckets live in a bounded Caffeine cache and idle ones expire, so a spray
+ * of distinct clients cannot grow memory without bound. Configured replication peers, resolved once at startup,
+ * are not limited on the replication endpoint: they already ask at most once per base and expiry, and a 429
+ * would only send them to upstream instead.
+ */
+@Component
+public class ClientRateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(ClientRateLimiter.class);
+
+    // the replication endpoint may fetch from upstream on a caller's behalf, so it is throttled like the rate API
+    // for anyone but the configured peers
+    static final List<String> PATH_PREFIXES = List.of("/exchangeRates", PeerReplication.PATH);
+
+    static final int STATUS = HttpStatus.TOO_MANY_REQUESTS.value();
+
+    static final String CONTENT_TYPE = MediaType.APPLICATION_JSON_VALUE;
+
+    static final byte[] BODY = "{\"error\":\"Too many requests\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final ExchangeRateProperties.RateLimit rateLimit;
+    private final Set<String> apiKeys;
+    private final Set<String> peerAddresses;
+    private final Cache<String, TokenBucket> buckets;
+    private final LongAdder rejected = new LongAdder();
+
+    public ClientRateLimiter(ExchangeRateProperties exchangeRateProperties) {
+        this.rateLimit = exchangeRateProperties.getRateLimit();
+        this.apiKeys = Set.copyOf(rateLimit.getApiKeys());
+        ExchangeRateProperties.Replication replication = exchangeRateProperties.getReplication();
+        this.peerAddresses = replication.isEnabled() ? resolve(replication.getPeers()) : Set.of();
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(rateLimit.getMaxClients())
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+    }
+
+    static boolean isLimited(String path) {
+        for (String prefix : PATH_PREFIXES) {
+            if (path.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isExempt(String path, String clientAddress) {
+        return path.startsWith(PeerReplication.PATH) && peerAddresses.contains(clientAddress);
+    }
+
+    public boolean isEnabled() {
+        return rateLimit.isEnabled();
+    }
+
+    public String getKeyHeader() {
+        return rateLimit.getKeyHeader();
+    }
+
+    /**
+     * @return 0 if the request may proceed, otherwise the whole seconds to send as Retry-After
+     */
+    public long tryAcquire(String apiKey, String clientAddress) {
+        String client = apiKey != null && apiKeys.contains(apiKey) ? "key:" + apiKey : "ip:" + clientAddress;
+        TokenBucket bucket = buckets.get(client, key -> new TokenBucket(rateLimit.getRequestsPerSecond(), rateLimit.getBurst()));
+        long waitNanos = bucket.tryAcquire();
+        if (waitNanos == 0) {
+            return 0;
+        }
+        rejected.increment();
+        return Math.max(1, Duration.ofNanos(waitNanos).toSeconds() + 1);
+    }
+
+    private static Set<String> resolve(List<String> peers) {
+        Set<String> addresses = new HashSet<>();
+        for (String peer : peers) {
+            String host = URI.create(peer.trim()).getHost();
+            if (host == null) {
+                continue;
+            }
+            try {
+                for (InetAddress address : InetAddress.getAllByName(host)) {
+                    addresses.add(address.getHostAddress());
+                }
+            } catch (UnknownHostException e) {
+                log.warn("Peer {} does not resolve, its replication requests are rate limited", peer);
+            }
+        }
+        return Set.copyOf(addresses);
+    }
+
+    public Map<String, Object> getStatistics() {
+        return Map.of(
+                "clients", buckets.estimatedSize(),
+                "rejected", rejected.sum()
+        );
+    }
+}
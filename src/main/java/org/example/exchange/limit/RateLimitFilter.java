@@ -0,0 +1,41 @@
+package org.example.exchange.limit;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private ClientRateLimiter clientRateLimiter;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !clientRateLimiter.isEnabled() || !ClientRateLimiter.isLimited(request.getRequestURI())
+                || clientRateLimiter.isExempt(request.getRequestURI(), request.getRemoteAddr());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long retryAfter = clientRateLimiter.tryAcquire(request.getHeader(clientRateLimiter.getKeyHeader()), request.getRemoteAddr());
+        if (retryAfter == 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        response.setStatus(ClientRateLimiter.STATUS);
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+        response.setContentType(ClientRateLimiter.CONTENT_TYPE);
+        response.getOutputStream().write(ClientRateLimiter.BODY);
+    }
+}
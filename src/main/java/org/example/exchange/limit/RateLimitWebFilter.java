@@ -0,0 +1,46 @@
+package org.example.exchange.limit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class RateLimitWebFilter implements WebFilter {
+
+    @Autowired
+    private ClientRateLimiter clientRateLimiter;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!clientRateLimiter.isEnabled() || !ClientRateLimiter.isLimited(request.getPath().value())) {
+            return chain.filter(exchange);
+        }
+
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        String clientAddress = remoteAddress != null ? remoteAddress.getHostString() : "unknown";
+        if (clientRateLimiter.isExempt(request.getPath().value(), clientAddress)) {
+            return chain.filter(exchange);
+        }
+        long retryAfter = clientRateLimiter.tryAcquire(request.getHeaders().getFirst(clientRateLimiter.getKeyHeader()), clientAddress);
+        if (retryAfter == 0) {
+            return chain.filter(exchange);
+        }
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.valueOf(ClientRateLimiter.STATUS));
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+        response.getHeaders().set(HttpHeaders.CONTENT_TYPE, ClientRateLimiter.CONTENT_TYPE);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(ClientRateLimiter.BODY)));
+    }
+}
@@ -0,0 +1,139 @@
+package org.example.exchange.limit;
+
+import org.example.exchange.config.ExchangeRateProperties;
+import org.example.exchange.trace.RequestTrace;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Global cap on concurrent upstream fetches. Fetches over the cap wait in a bounded FIFO queue for up to
+ * the queue timeout and are rejected beyond that, so a burst of cache misses is shed instead of turning
+ * into unbounded calls to the providers. Cache hits never pass through here. Permits and the queue are
+ * lock-free; each waiter is resolved exactly once, either granted a permit or abandoned, and a granted
+ * permit is released exactly once, whether the fetch ends or the waiter is cancelled while it runs.
+ */
+@Component
+public class UpstreamAdmission {
+
+    private static final int WAITING = 0;
+    private static final int GRANTED = 1;
+    private static final int ABANDONED = 2;
+
+    private static class Waiter {
+        final AtomicInteger state = new AtomicInteger(WAITING);
+        final Sinks.One<Boolean> granted = Sinks.one();
+        final AtomicBoolean released = new AtomicBoolean();
+    }
+
+    private final ExchangeRateProperties.Admission admission;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    private final LongAdder rejected = new LongAdder();
+
+    public UpstreamAdmission(ExchangeRateProperties exchangeRateProperties) {
+        this.admission = exchangeRateProperties.getAdmission();
+    }
+
+    public <T> Mono<T> admit(Mono<T> fetch) {
+        return Mono.defer(() -> {
+            if (tryAcquire()) {
+                return fetch.doFinally(signal -> release());
+            }
+            if (queued.incrementAndGet() > admission.getMaxQueuedFetches()) {
+                queued.decrementAndGet();
+                return reject();
+            }
+
+            Waiter waiter = new Waiter();
+            waiters.add(waiter);
+            drain();
+            Mono<Boolean> granted = waiter.granted.asMono()
+                    .timeout(admission.getQueueTimeout(), Mono.defer(() -> {
+                        abandon(waiter);
+                        return reject();
+                    }))
+                    .doOnCancel(() -> abandon(waiter));
+            return RequestTrace.phase("admission-queue", granted)
+                    .flatMap(permit -> fetch.doFinally(signal -> release(waiter)));
+        });
+    }
+
+    public Map<String, Object> getStatistics() {
+        return Map.of(
+                "inFlight", inFlight.get(),
+                "queued", queued.get(),
+                "rejected", rejected.sum()
+        );
+    }
+
+    private boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= admission.getMaxInFlightFetches()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void release() {
+        inFlight.decrementAndGet();
+        drain();
+    }
+
+    /**
+     * A cancel reaches both the granted waiter and the fetch it started, so either may release its permit.
+     */
+    private void release(Waiter waiter) {
+        if (waiter.released.compareAndSet(false, true)) {
+            release();
+        }
+    }
+
+    /**
+     * Hands free permits to queued waiters. Abandoned waiters are skipped; a permit taken with no one left
+     * to receive it is given back and the queue checked again, since a waiter enqueued meanwhile may have
+     * found no permit because of the one held here.
+     */
+    private void drain() {
+        while (!waiters.isEmpty() && tryAcquire()) {
+            Waiter waiter;
+            do {
+                waiter = waiters.poll();
+            } while (waiter != null && !waiter.state.compareAndSet(WAITING, GRANTED));
+
+            if (waiter == null) {
+                inFlight.decrementAndGet();
+                continue;
+            }
+            queued.decrementAndGet();
+            waiter.granted.tryEmitValue(Boolean.TRUE);
+        }
+    }
+
+    private void abandon(Waiter waiter) {
+        if (waiter.state.compareAndSet(WAITING, ABANDONED)) {
+            waiters.remove(waiter);
+            queued.decrementAndGet();
+        } else if (waiter.state.compareAndSet(GRANTED, ABANDONED)) {
+            // granted in the same instant or already fetching; either way the permit is given back once
+            release(waiter);
+        }
+    }
+
+    private <T> Mono<T> reject() {
+        rejected.increment();
+        return Mono.error(new AdmissionRejectedException("Upstream fetches saturated, request shed"));
+    }
+}
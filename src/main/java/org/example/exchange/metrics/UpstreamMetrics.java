@@ -0,0 +1,211 @@
+package org.example.exchange.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.example.exchange.config.ExchangeRateProperties;
+import org.example.exchange.trace.RequestTrace;
+import org.example.exchange.utils.WebClientUtil;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Mono;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Micrometer meters for every configured upstream API, created once at startup. URLs are mapped to their API
+ * through a precomputed prefix table (longest prefix first), so recording never allocates or touches a shared map.
+ */
+@Component
+public class UpstreamMetrics {
+
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p99", "p999"};
+
+    public enum Outcome {
+        SUCCESS, CLIENT_ERROR, SERVER_ERROR, ERROR, TIMEOUT, CANCELLED
+    }
+
+    public static class ApiMeters {
+        private final String name;
+        private final Counter calls;
+        private final Counter successes;
+        private final Counter failures;
+        private final Timer fetchLatency;
+        private final Map<Outcome, Timer> exchanges = new EnumMap<>(Outcome.class);
+
+        ApiMeters(String name, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.calls = Counter.builder("exchange.api.calls").tag("api", name).register(meterRegistry);
+            this.successes = Counter.builder("exchange.api.calls.succeeded").tag("api", name).register(meterRegistry);
+            this.failures = Counter.builder("exchange.api.calls.failed").tag("api", name).register(meterRegistry);
+            this.fetchLatency = Timer.builder("exchange.api.latency")
+                    .description("Time to a result from fetch-with-fallback, including the fallback URL")
+                    .tag("api", name)
+                    .publishPercentiles(PERCENTILES)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            for (Outcome outcome : Outcome.values()) {
+                exchanges.put(outcome, Timer.builder("exchange.upstream.requests")
+                        .description("Time to response headers for a single upstream HTTP request")
+                        .tag("api", name)
+                        .tag("outcome", outcome.name())
+                        .publishPercentiles(PERCENTILES)
+                        .register(meterRegistry));
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void recordCall() {
+            calls.increment();
+        }
+
+        public void recordSuccess(long elapsedNanos) {
+            successes.increment();
+            fetchLatency.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+
+        public void recordFailure(long elapsedNanos) {
+            failures.increment();
+            fetchLatency.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+
+        public void recordExchange(Outcome outcome, long elapsedNanos) {
+            exchanges.get(outcome).record(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+
+        public Map<String, Object> snapshot() {
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("name", name);
+            snapshot.put("totalRequests", (long) calls.count());
+            snapshot.put("successfulRequests", (long) successes.count());
+            snapshot.put("failedRequests", (long) failures.count());
+            snapshot.put("timeouts", exchanges.get(Outcome.TIMEOUT).count());
+            snapshot.put("cancelled", exchanges.get(Outcome.CANCELLED).count());
+            snapshot.put("latencyMs", percentiles(fetchLatency));
+            return snapshot;
+        }
+
+        private static Map<String, Double> percentiles(Timer timer) {
+            Map<String, Double> percentiles = new LinkedHashMap<>();
+            ValueAtPercentile[] values = timer.takeSnapshot().percentileValues();
+            for (int i = 0; i < values.length && i < PERCENTILE_NAMES.length; i++) {
+                percentiles.put(PERCENTILE_NAMES[i], values[i].value(TimeUnit.MILLISECONDS));
+            }
+            return percentiles;
+        }
+    }
+
+    private final String[] prefixes;
+    private final ApiMeters[] prefixMeters;
+    private final List<ApiMeters> apis;
+
+    public UpstreamMetrics(ExchangeRateProperties exchangeRateProperties, MeterRegistry meterRegistry) {
+        List<Map.Entry<String, String>> urls = exchangeRateProperties.getUrls().entrySet().stream()
+                .sorted(Comparator.comparingInt((Map.Entry<String, String> entry) -> entry.getValue().length()).reversed())
+                .toList();
+        this.prefixes = new String[urls.size()];
+        this.prefixMeters = new ApiMeters[urls.size()];
+        for (int i = 0; i < urls.size(); i++) {
+            prefixes[i] = urls.get(i).getValue();
+            prefixMeters[i] = new ApiMeters(urls.get(i).getKey(), meterRegistry);
+        }
+        this.apis = List.of(prefixMeters);
+    }
+
+    public ApiMeters forUrl(String url) {
+        for (int i = 0; i < prefixes.length; i++) {
+            if (url.startsWith(prefixes[i])) {
+                return prefixMeters[i];
+            }
+        }
+        return null;
+    }
+
+    public List<ApiMeters> getApis() {
+        return apis;
+    }
+
+    public ExchangeFilterFunction exchangeFilter() {
+        return (request, next) -> {
+            ApiMeters meters = forUrl(request.url().toString());
+            if (meters == null) {
+                return next.exchange(request);
+            }
+            return Mono.deferContextual(context -> {
+                long start = System.nanoTime();
+                // a cancel that follows the response, e.g. from a quorum that no longer needs it, is not a timeout
+                AtomicBoolean responded = new AtomicBoolean();
+                // a cancel before it is a timeout only if the caller's deadline fired; hedges and quorums cancel too
+                WebClientUtil.Deadline deadline = context.getOrDefault(WebClientUtil.Deadline.class, null);
+                Mono<ClientResponse> exchange = next.exchange(request)
+                        .doOnNext(response -> {
+                            responded.set(true);
+                            meters.recordExchange(outcomeOf(response), System.nanoTime() - start);
+                        })
+                        .doOnError(e -> meters.recordExchange(Outcome.ERROR, System.nanoTime() - start))
+                        .doOnCancel(() -> {
+                            if (!responded.get()) {
+                                Outcome outcome = deadline != null && deadline.isExpired() ? Outcome.TIMEOUT : Outcome.CANCELLED;
+                                meters.recordExchange(outcome, System.nanoTime() - start);
+                            }
+                        });
+                RequestTrace trace = RequestTrace.current(context);
+                return trace == null ? exchange : traced(exchange, trace, meters.getName(), start, responded);
+            });
+        };
+    }
+
+    /**
+     * Records the exchange in the request's trace up to the end of the body, so slow bodies are attributed to
+     * the upstream rather than to whatever decodes them. Once a response has arrived only its body is recorded,
+     * and only once: the body may be subscribed again to release it, and the exchange cancelled after it ended.
+     */
+    private static Mono<ClientResponse> traced(Mono<ClientResponse> exchange, RequestTrace trace, String api, long start,
+                                               AtomicBoolean responded) {
+        AtomicBoolean recorded = new AtomicBoolean();
+        Consumer<String> record = detail -> {
+            if (recorded.compareAndSet(false, true)) {
+                RequestTrace.record(trace, api, detail, start);
+            }
+        };
+        return exchange
+                .map(response -> {
+                    String status = String.valueOf(response.statusCode().value());
+                    return response.mutate()
+                            .body(body -> body
+                                    .doOnComplete(() -> record.accept(status))
+                                    .doOnError(e -> record.accept(status + " error"))
+                                    .doOnCancel(() -> record.accept(status + " cancelled")))
+                            .build();
+                })
+                .doOnError(e -> record.accept(e.getClass().getSimpleName()))
+                .doOnCancel(() -> {
+                    if (!responded.get()) {
+                        record.accept("cancelled");
+                    }
+                });
+    }
+
+    private static Outcome outcomeOf(ClientResponse response) {
+        if (response.statusCode().is5xxServerError()) {
+            return Outcome.SERVER_ERROR;
+        }
+        if (response.statusCode().is4xxClientError()) {
+            return Outcome.CLIENT_ERROR;
+        }
+        return Outcome.SUCCESS;
+    }
+}
@@ -0,0 +1,69 @@
+package org.example.exchange.model;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Body of a batch conversion request. When {@code pivot} is set, every base is derived from the
+ * pivot's rate table so the whole batch needs at most one upstream fetch.
+ */
+public class BatchRateRequest {
+
+    private String pivot;
+
+    @NotEmpty
+    @Valid
+    private List<Item> items = new ArrayList<>();
+
+    public String getPivot() {
+        return pivot;
+    }
+
+    public void setPivot(String pivot) {
+        this.pivot = pivot;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public void setItems(List<Item> items) {
+        this.items = items;
+    }
+
+    public static class Item {
+
+        @NotEmpty
+        private String base;
+
+        /** Currencies to return; empty means the full table for this base. */
+        private List<String> symbols = new ArrayList<>();
+
+        public Item() {
+        }
+
+        public Item(String base, List<String> symbols) {
+            this.base = base;
+            this.symbols = symbols;
+        }
+
+        public String getBase() {
+            return base;
+        }
+
+        public void setBase(String base) {
+            this.base = base;
+        }
+
+        public List<String> getSymbols() {
+            return symbols;
+        }
+
+        public void setSymbols(List<String> symbols) {
+            this.symbols = symbols;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.example.exchange.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide mapping from currency code to a dense ordinal, so rate tables can be plain arrays.
+ * Only codes reported by upstream providers are registered; client symbols are looked up without registering.
+ */
+public final class CurrencyIndex {
+
+    private static final Map<String, Integer> ORDINALS = new ConcurrentHashMap<>();
+
+    private static volatile String[] codes = new String[0];
+
+    private CurrencyIndex() {
+    }
+
+    public static int register(String code) {
+        Integer ordinal = ORDINALS.get(code);
+        return ordinal != null ? ordinal : registerSlow(code);
+    }
+
+    private static synchronized int registerSlow(String code) {
+        Integer ordinal = ORDINALS.get(code);
+        if (ordinal != null) {
+            return ordinal;
+        }
+        String[] current = codes;
+        String[] grown = Arrays.copyOf(current, current.length + 1);
+        grown[current.length] = code;
+        codes = grown;
+        ORDINALS.put(code, current.length);
+        return current.length;
+    }
+
+    public static int ordinalOf(String code) {
+        Integer ordinal = ORDINALS.get(code);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    public static String codeOf(int ordinal) {
+        return codes[ordinal];
+    }
+
+    public static int size() {
+        return codes.length;
+    }
+}
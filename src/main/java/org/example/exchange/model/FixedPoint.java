@@ -0,0 +1,54 @@
+package org.example.exchange.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Helpers for decimals held as an unscaled long plus a scale, the representation used by
+ * {@link RateQuotes} and {@link RateTable} instead of {@link BigDecimal}.
+ */
+public final class FixedPoint {
+
+    public static final int RATE_SCALE = 6;
+
+    public static final int MAX_SCALE = 18;
+
+    static final long[] POWERS_OF_TEN = new long[MAX_SCALE + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i <= MAX_SCALE; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private FixedPoint() {
+    }
+
+    /**
+     * Divides and rounds HALF_UP, matching {@link BigDecimal#divide(BigDecimal, int, java.math.RoundingMode)}.
+     */
+    public static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = Math.abs(dividend % divisor);
+        if (remainder >= divisor - remainder) {
+            quotient += Long.signum(dividend) * Long.signum(divisor);
+        }
+        return quotient;
+    }
+
+    /**
+     * Rescales {@code unscaled} from {@code scale} to {@code targetScale}, rounding HALF_UP when the scale shrinks.
+     *
+     * @throws ArithmeticException if the result does not fit in a long
+     */
+    public static long rescale(long unscaled, int scale, int targetScale) {
+        if (targetScale >= scale) {
+            return Math.multiplyExact(unscaled, POWERS_OF_TEN[targetScale - scale]);
+        }
+        return divideHalfUp(unscaled, POWERS_OF_TEN[scale - targetScale]);
+    }
+
+    public static BigDecimal toBigDecimal(long unscaled, int scale) {
+        return BigDecimal.valueOf(unscaled, scale);
+    }
+}
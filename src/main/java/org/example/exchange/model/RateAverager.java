@@ -0,0 +1,91 @@
+package org.example.exchange.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Averages provider quotes into a {@link RateTable} using long arithmetic on arrays indexed by currency ordinal.
+ * Each currency's sum is kept exact at the largest scale seen for it and divided by the number of responses quoting it, with
+ * HALF_UP rounding to {@link FixedPoint#RATE_SCALE} decimals, which gives the same digits as summing
+ * {@link BigDecimal}s and calling {@code divide(count, 6, HALF_UP)}. A sum that would overflow a long is finished in
+ * {@link BigDecimal} for that currency only.
+ */
+public final class RateAverager {
+
+    private RateAverager() {
+    }
+
+    public static RateTable average(String base, List<RateQuotes> responses) {
+        int currencyCount = CurrencyIndex.size();
+        long[] sums = new long[currencyCount];
+        byte[] scales = new byte[currencyCount];
+        int[] counts = new int[currencyCount];
+        BigDecimal[] overflowSums = null;
+
+        for (RateQuotes quotes : responses) {
+            for (int i = 0; i < quotes.size(); i++) {
+                int ordinal = quotes.getOrdinal(i);
+                long rate = quotes.getUnscaledRate(i);
+                int scale = quotes.getScale(i);
+                counts[ordinal]++;
+
+                if (overflowSums != null && overflowSums[ordinal] != null) {
+                    overflowSums[ordinal] = overflowSums[ordinal].add(FixedPoint.toBigDecimal(rate, scale));
+                } else if (counts[ordinal] == 1) {
+                    sums[ordinal] = rate;
+                    scales[ordinal] = (byte) scale;
+                } else {
+                    try {
+                        int commonScale = Math.max(scales[ordinal], scale);
+                        sums[ordinal] = Math.addExact(
+                                FixedPoint.rescale(sums[ordinal], scales[ordinal], commonScale),
+                                FixedPoint.rescale(rate, scale, commonScale));
+                        scales[ordinal] = (byte) commonScale;
+                    } catch (ArithmeticException e) {
+                        if (overflowSums == null) {
+                            overflowSums = new BigDecimal[currencyCount];
+                        }
+                        overflowSums[ordinal] = FixedPoint.toBigDecimal(sums[ordinal], scales[ordinal])
+                                .add(FixedPoint.toBigDecimal(rate, scale));
+                    }
+                }
+            }
+        }
+
+        long[] averages = new long[currencyCount];
+        Arrays.fill(averages, RateTable.MISSING);
+        for (int ordinal = 0; ordinal < currencyCount; ordinal++) {
+            if (counts[ordinal] == 0) {
+                continue;
+            }
+            long apiCount = counts[ordinal];
+            if (overflowSums == null || overflowSums[ordinal] == null) {
+                try {
+                    averages[ordinal] = divide(sums[ordinal], scales[ordinal], apiCount);
+                    continue;
+                } catch (ArithmeticException e) {
+                    if (overflowSums == null) {
+                        overflowSums = new BigDecimal[currencyCount];
+                    }
+                    overflowSums[ordinal] = FixedPoint.toBigDecimal(sums[ordinal], scales[ordinal]);
+                }
+            }
+            BigDecimal average = overflowSums[ordinal]
+                    .divide(BigDecimal.valueOf(apiCount), FixedPoint.RATE_SCALE, RoundingMode.HALF_UP);
+            if (average.unscaledValue().bitLength() < Long.SIZE) {
+                averages[ordinal] = average.unscaledValue().longValue();
+            }
+        }
+
+        return new RateTable(base, averages);
+    }
+
+    private static long divide(long sum, int scale, long apiCount) {
+        if (scale <= FixedPoint.RATE_SCALE) {
+            return FixedPoint.divideHalfUp(FixedPoint.rescale(sum, scale, FixedPoint.RATE_SCALE), apiCount);
+        }
+        return FixedPoint.divideHalfUp(sum, Math.multiplyExact(FixedPoint.POWERS_OF_TEN[scale - FixedPoint.RATE_SCALE], apiCount));
+    }
+}
@@ -0,0 +1,191 @@
+package org.example.exchange.model;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Arrays;
+
+/**
+ * Rates reported by a single provider for one base currency. Each quote is a currency ordinal from
+ * {@link CurrencyIndex} and an unscaled long with its own scale, so a decoded payload never goes
+ * through boxed maps or {@link BigDecimal}.
+ */
+public final class RateQuotes {
+
+    private static final RateQuotes EMPTY = new RateQuotes(new int[0], new long[0], new byte[0], 0);
+
+    private static final MathContext SIGNIFICANT_DIGITS = new MathContext(FixedPoint.MAX_SCALE, RoundingMode.HALF_UP);
+
+    private final int[] ordinals;
+    private final long[] unscaledRates;
+    private final byte[] scales;
+    private final int size;
+
+    private RateQuotes(int[] ordinals, long[] unscaledRates, byte[] scales, int size) {
+        this.ordinals = ordinals;
+        this.unscaledRates = unscaledRates;
+        this.scales = scales;
+        this.size = size;
+    }
+
+    public static RateQuotes empty() {
+        return EMPTY;
+    }
+
+    public static Builder builder(int expectedSize) {
+        return new Builder(expectedSize);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getOrdinal(int index) {
+        return ordinals[index];
+    }
+
+    public String getCurrency(int index) {
+        return CurrencyIndex.codeOf(ordinals[index]);
+    }
+
+    public long getUnscaledRate(int index) {
+        return unscaledRates[index];
+    }
+
+    public int getScale(int index) {
+        return scales[index];
+    }
+
+    public BigDecimal getRate(int index) {
+        return FixedPoint.toBigDecimal(unscaledRates[index], scales[index]);
+    }
+
+    public static final class Builder {
+        private int[] ordinals;
+        private long[] unscaledRates;
+        private byte[] scales;
+        private int size;
+
+        private Builder(int expectedSize) {
+            int capacity = Math.max(expectedSize, 8);
+            this.ordinals = new int[capacity];
+            this.unscaledRates = new long[capacity];
+            this.scales = new byte[capacity];
+        }
+
+        public Builder add(String currency, long unscaledRate, int scale) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                unscaledRates = Arrays.copyOf(unscaledRates, size * 2);
+                scales = Arrays.copyOf(scales, size * 2);
+            }
+            ordinals[size] = CurrencyIndex.register(currency);
+            unscaledRates[size] = unscaledRate;
+            scales[size] = (byte) scale;
+            size++;
+            return this;
+        }
+
+        /**
+         * Adds a rate kept to at most {@link FixedPoint#MAX_SCALE} decimals and 18 significant digits.
+         * Values too large for a long are dropped.
+         */
+        public Builder add(String currency, BigDecimal rate) {
+            BigDecimal normalized = rate.round(SIGNIFICANT_DIGITS);
+            if (normalized.scale() < 0) {
+                normalized = normalized.setScale(0);
+            } else if (normalized.scale() > FixedPoint.MAX_SCALE) {
+                normalized = normalized.setScale(FixedPoint.MAX_SCALE, RoundingMode.HALF_UP);
+            }
+            if (normalized.unscaledValue().bitLength() < Long.SIZE) {
+                add(currency, normalized.unscaledValue().longValue(), normalized.scale());
+            }
+            return this;
+        }
+
+        /**
+         * Adds a rate straight from the characters of a JSON number without creating any objects.
+         *
+         * @return false if the number needs more than 18 significant digits or does not fit in a long,
+         * in which case nothing is added
+         */
+        public boolean add(String currency, char[] chars, int offset, int length) {
+            int index = offset;
+            int end = offset + length;
+            boolean negative = index < end && chars[index] == '-';
+            if (negative) {
+                index++;
+            }
+
+            long unscaled = 0;
+            int scale = 0;
+            int significantDigits = 0;
+            boolean fraction = false;
+            for (; index < end; index++) {
+                char c = chars[index];
+                if (c >= '0' && c <= '9') {
+                    if (unscaled != 0 || c != '0') {
+                        if (++significantDigits > FixedPoint.MAX_SCALE) {
+                            return false;
+                        }
+                    }
+                    unscaled = unscaled * 10 + (c - '0');
+                    if (fraction) {
+                        scale++;
+                    }
+                } else if (c == '.' && !fraction) {
+                    fraction = true;
+                } else if (c == 'e' || c == 'E') {
+                    break;
+                } else {
+                    return false;
+                }
+            }
+
+            if (index < end) {
+                int exponent = 0;
+                boolean negativeExponent = false;
+                index++;
+                if (index < end && (chars[index] == '-' || chars[index] == '+')) {
+                    negativeExponent = chars[index] == '-';
+                    index++;
+                }
+                for (; index < end; index++) {
+                    char c = chars[index];
+                    if (c < '0' || c > '9' || exponent > 1000) {
+                        return false;
+                    }
+                    exponent = exponent * 10 + (c - '0');
+                }
+                scale += negativeExponent ? exponent : -exponent;
+            }
+
+            try {
+                if (scale < -FixedPoint.MAX_SCALE) {
+                    return false;
+                } else if (scale < 0) {
+                    unscaled = FixedPoint.rescale(unscaled, scale, 0);
+                    scale = 0;
+                } else if (scale > FixedPoint.MAX_SCALE) {
+                    unscaled = scale - FixedPoint.MAX_SCALE > FixedPoint.MAX_SCALE
+                            ? 0
+                            : FixedPoint.rescale(unscaled, scale, FixedPoint.MAX_SCALE);
+                    scale = FixedPoint.MAX_SCALE;
+                }
+            } catch (ArithmeticException e) {
+                return false;
+            }
+
+            add(currency, negative ? -unscaled : unscaled, scale);
+            return true;
+        }
+
+        public RateQuotes build() {
+            return size == 0 ? EMPTY : new RateQuotes(ordinals, unscaledRates, scales, size);
+        }
+    }
+}
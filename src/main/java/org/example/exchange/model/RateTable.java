@@ -0,0 +1,203 @@
+package org.example.exchange.model;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Immutable table of every averaged rate known for one base currency, stored as longs scaled to
+ * {@link FixedPoint#RATE_SCALE} decimals and indexed by {@link CurrencyIndex} ordinal.
+ * {@link BigDecimal}s are only created when a projection is rendered.
+ */
+public final class RateTable {
+
+    static final long MISSING = Long.MIN_VALUE;
+
+    private final String base;
+    private final long[] rates;
+    private final int size;
+    private final long version;
+
+    RateTable(String base, long[] rates) {
+        this.base = base;
+        this.rates = rates;
+        int present = 0;
+        long hash = 0;
+        for (int ordinal = 0; ordinal < rates.length; ordinal++) {
+            if (rates[ordinal] != MISSING) {
+                present++;
+                hash += mix(CurrencyIndex.codeOf(ordinal).hashCode() * 0x9E3779B97F4A7C15L ^ rates[ordinal]);
+            }
+        }
+        this.size = present;
+        this.version = mix(hash ^ base.hashCode());
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xFF51AFD7ED558CCDL;
+        value = (value ^ (value >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return value ^ (value >>> 33);
+    }
+
+    public static RateTable of(String base, Map<String, BigDecimal> rates) {
+        long[] scaledRates = new long[0];
+        for (Map.Entry<String, BigDecimal> rate : rates.entrySet()) {
+            BigDecimal scaled = rate.getValue().setScale(FixedPoint.RATE_SCALE, RoundingMode.HALF_UP);
+            if (scaled.unscaledValue().bitLength() >= Long.SIZE) {
+                continue;
+            }
+            int ordinal = CurrencyIndex.register(rate.getKey());
+            if (ordinal >= scaledRates.length) {
+                int previousLength = scaledRates.length;
+                scaledRates = Arrays.copyOf(scaledRates, CurrencyIndex.size());
+                Arrays.fill(scaledRates, previousLength, scaledRates.length, MISSING);
+            }
+            scaledRates[ordinal] = scaled.unscaledValue().longValue();
+        }
+        return new RateTable(base, scaledRates);
+    }
+
+    public String getBase() {
+        return base;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Content hash of the base and every rate. It does not depend on {@link CurrencyIndex} ordinals or their
+     * registration order, so equal tables have equal versions across refreshes, restarts and instances and
+     * it can serve as an entity tag.
+     */
+    public String getVersion() {
+        return Long.toHexString(version);
+    }
+
+    public BigDecimal getRate(String currency) {
+        long rate = getScaledRate(CurrencyIndex.ordinalOf(currency));
+        return rate != MISSING ? FixedPoint.toBigDecimal(rate, FixedPoint.RATE_SCALE) : null;
+    }
+
+    long getScaledRate(int ordinal) {
+        return ordinal >= 0 && ordinal < rates.length ? rates[ordinal] : MISSING;
+    }
+
+    /**
+     * Derives the table for {@code newBase} by crossing every rate through this table's base:
+     * {@code newBase -> x = (base -> x) / (base -> newBase)}. Returns {@code null} when this table
+     * has no usable rate for {@code newBase}.
+     */
+    public RateTable rebase(String newBase) {
+        int baseOrdinal = CurrencyIndex.ordinalOf(newBase);
+        long divisor = getScaledRate(baseOrdinal);
+        if (divisor == MISSING || divisor <= 0) {
+            return null;
+        }
+
+        int pivotOrdinal = CurrencyIndex.register(base);
+        long[] crossRates = new long[Math.max(rates.length, pivotOrdinal + 1)];
+        Arrays.fill(crossRates, MISSING);
+        for (int ordinal = 0; ordinal < rates.length; ordinal++) {
+            if (rates[ordinal] != MISSING) {
+                crossRates[ordinal] = cross(rates[ordinal], divisor);
+            }
+        }
+        if (crossRates[pivotOrdinal] == MISSING) {
+            crossRates[pivotOrdinal] = cross(FixedPoint.POWERS_OF_TEN[FixedPoint.RATE_SCALE], divisor);
+        }
+        return new RateTable(newBase, crossRates);
+    }
+
+    /**
+     * Relative error that {@link #rebase} passes on to every derived rate through the rounded
+     * {@code base -> newBase} leg, or NaN when that leg is missing. A small leg such as usd to btc is
+     * rounded to a few significant digits, so its error dominates the whole rebased table.
+     */
+    public double getRebaseRelativeError(String newBase) {
+        long divisor = legOf(newBase);
+        return divisor == MISSING || divisor <= 0 ? Double.NaN : 0.5 / divisor;
+    }
+
+    /**
+     * Rate from {@code from} to {@code to} triangulated through this table's base, or {@code null}
+     * when either leg is missing.
+     */
+    public BigDecimal getCrossRate(String from, String to) {
+        long divisor = legOf(from);
+        long rate = legOf(to);
+        if (divisor == MISSING || divisor <= 0 || rate == MISSING) {
+            return null;
+        }
+        long crossed = cross(rate, divisor);
+        return crossed != MISSING ? FixedPoint.toBigDecimal(crossed, FixedPoint.RATE_SCALE) : null;
+    }
+
+    /**
+     * Worst-case relative error of {@link #getCrossRate}: both legs and the result are each
+     * rounded to {@link FixedPoint#RATE_SCALE} decimals, so each contributes half a unit in the last place.
+     */
+    public double getCrossRelativeError(String from, String to) {
+        long divisor = legOf(from);
+        long rate = legOf(to);
+        if (divisor == MISSING || divisor <= 0 || rate == MISSING || rate <= 0) {
+            return Double.NaN;
+        }
+        long crossed = cross(rate, divisor);
+        return 0.5 / divisor + 0.5 / rate + (crossed > 0 ? 0.5 / crossed : Double.POSITIVE_INFINITY);
+    }
+
+    private long legOf(String currency) {
+        return base.equals(currency)
+                ? FixedPoint.POWERS_OF_TEN[FixedPoint.RATE_SCALE]
+                : getScaledRate(CurrencyIndex.ordinalOf(currency));
+    }
+
+    private static long cross(long rate, long divisor) {
+        long scale = FixedPoint.POWERS_OF_TEN[FixedPoint.RATE_SCALE];
+        if (rate > -Long.MAX_VALUE / scale && rate < Long.MAX_VALUE / scale) {
+            return FixedPoint.divideHalfUp(rate * scale, divisor);
+        }
+        BigInteger crossed = BigDecimal.valueOf(rate)
+                .divide(BigDecimal.valueOf(divisor), FixedPoint.RATE_SCALE, RoundingMode.HALF_UP)
+                .unscaledValue();
+        return crossed.bitLength() < Long.SIZE ? crossed.longValue() : MISSING;
+    }
+
+    public Map<String, BigDecimal> project(Collection<String> symbols) {
+        Map<String, BigDecimal> projected = new HashMap<>(Math.max(4, symbols.size() * 2));
+        for (String symbol : symbols) {
+            long rate = getScaledRate(CurrencyIndex.ordinalOf(symbol));
+            if (rate != MISSING) {
+                projected.put(symbol, FixedPoint.toBigDecimal(rate, FixedPoint.RATE_SCALE));
+            }
+        }
+        return projected;
+    }
+
+    /**
+     * Visits every rate as its unscaled long at {@link FixedPoint#RATE_SCALE}, without creating {@link BigDecimal}s.
+     */
+    public void forEachScaledRate(ObjLongConsumer<String> action) {
+        for (int ordinal = 0; ordinal < rates.length; ordinal++) {
+            if (rates[ordinal] != MISSING) {
+                action.accept(CurrencyIndex.codeOf(ordinal), rates[ordinal]);
+            }
+        }
+    }
+
+    public Map<String, BigDecimal> toMap() {
+        Map<String, BigDecimal> all = new HashMap<>(size * 2);
+        for (int ordinal = 0; ordinal < rates.length; ordinal++) {
+            if (rates[ordinal] != MISSING) {
+                all.put(CurrencyIndex.codeOf(ordinal), FixedPoint.toBigDecimal(rates[ordinal], FixedPoint.RATE_SCALE));
+            }
+        }
+        return all;
+    }
+}
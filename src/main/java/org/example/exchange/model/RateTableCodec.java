@@ -0,0 +1,68 @@
+package org.example.exchange.model;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Binary form of a {@link RateTable} shared by the cache snapshot and peer replication: a rate count, then
+ * per rate its currency code, scale and unscaled long, with a textual fallback for values that do not fit.
+ * Codes travel as text, so {@link CurrencyIndex} ordinals never leave the process.
+ * Tables are read from peers and from disk, so only ISO 4217 shaped codes are registered on the way in;
+ * anything else is skipped rather than letting a foreign table grow the process-wide index.
+ */
+public final class RateTableCodec {
+
+    private static final byte UNSCALED_AS_TEXT = Byte.MIN_VALUE;
+
+    private static final Pattern CURRENCY_CODE = Pattern.compile("[a-z]{3}");
+
+    private static final int MAX_RATES = 26 * 26 * 26;
+
+    private RateTableCodec() {
+    }
+
+    public static void write(RateTable rateTable, DataOutputStream out) throws IOException {
+        Map<String, BigDecimal> rates = rateTable.toMap();
+        out.writeInt(rates.size());
+        for (Map.Entry<String, BigDecimal> rate : rates.entrySet()) {
+            out.writeUTF(rate.getKey());
+            BigDecimal value = rate.getValue();
+            if (value.unscaledValue().bitLength() < Long.SIZE && value.scale() >= 0 && value.scale() < Byte.MAX_VALUE) {
+                out.writeByte(value.scale());
+                out.writeLong(value.unscaledValue().longValue());
+            } else {
+                out.writeByte(UNSCALED_AS_TEXT);
+                out.writeUTF(value.toString());
+            }
+        }
+    }
+
+    private static boolean isCurrencyCode(String code) {
+        return CURRENCY_CODE.matcher(code).matches();
+    }
+
+    public static RateTable read(String base, DataInputStream in) throws IOException {
+        int size = in.readInt();
+        if (size < 0 || size > MAX_RATES) {
+            throw new IOException("Invalid rate count " + size);
+        }
+        Map<String, BigDecimal> rates = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            String currency = in.readUTF();
+            byte scale = in.readByte();
+            BigDecimal rate = scale == UNSCALED_AS_TEXT
+                    ? new BigDecimal(in.readUTF())
+                    : new BigDecimal(BigInteger.valueOf(in.readLong()), scale);
+            if (isCurrencyCode(currency)) {
+                rates.put(currency, rate);
+            }
+        }
+        return RateTable.of(base, rates);
+    }
+}
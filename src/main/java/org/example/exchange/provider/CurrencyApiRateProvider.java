@@ -0,0 +1,38 @@
+package org.example.exchange.provider;
+
+import org.example.exchange.config.ExchangeRateProperties;
+import org.example.exchange.model.RateQuotes;
+import org.example.exchange.utils.WebClientUtil;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+@Component
+@ConditionalOnProperty("exchange-rate.urls.primary-currency-url")
+public class CurrencyApiRateProvider implements RateProvider {
+
+    private final WebClientUtil webClientUtil;
+    private final String primaryCurrencyUrl;
+    private final String fallbackCurrencyUrl;
+
+    public CurrencyApiRateProvider(WebClientUtil webClientUtil, ExchangeRateProperties exchangeRateProperties) {
+        this.webClientUtil = webClientUtil;
+        this.primaryCurrencyUrl = exchangeRateProperties.getUrls().get("primary-currency-url");
+        this.fallbackCurrencyUrl = exchangeRateProperties.getUrls().get("fallback-currency-url");
+    }
+
+    @Override
+    public String getName() {
+        return "currency-api";
+    }
+
+    @Override
+    public Mono<RateQuotes> fetchRates(String baseCur) {
+        String primaryCurrencyUrlWithParams = primaryCurrencyUrl + "/currencies/" + baseCur + ".json";
+        String fallbackCurrencyUrlWithParams = fallbackCurrencyUrl != null
+                ? fallbackCurrencyUrl + "/currencies/" + baseCur + ".json"
+                : null;
+
+        return webClientUtil.fetchRatesWithFallback(primaryCurrencyUrlWithParams, fallbackCurrencyUrlWithParams, baseCur);
+    }
+}
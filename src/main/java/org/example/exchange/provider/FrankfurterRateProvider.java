@@ -0,0 +1,44 @@
+package org.example.exchange.provider;
+
+import org.example.exchange.config.ExchangeRateProperties;
+import org.example.exchange.model.RateQuotes;
+import org.example.exchange.utils.WebClientUtil;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@Component
+@ConditionalOnProperty("exchange-rate.urls.frankfurter-url")
+public class FrankfurterRateProvider implements RateProvider {
+
+    private final WebClientUtil webClientUtil;
+    private final String frankfurterUrl;
+    private final ExchangeRateProperties.History history;
+
+    public FrankfurterRateProvider(WebClientUtil webClientUtil, ExchangeRateProperties exchangeRateProperties) {
+        this.webClientUtil = webClientUtil;
+        this.frankfurterUrl = exchangeRateProperties.getUrls().get("frankfurter-url");
+        this.history = exchangeRateProperties.getHistory();
+    }
+
+    @Override
+    public String getName() {
+        return "frankfurter";
+    }
+
+    @Override
+    public Mono<RateQuotes> fetchRates(String baseCur) {
+        return webClientUtil.fetchRatesWithFallback(frankfurterUrl + "/latest?base=" + baseCur, null, "rates");
+    }
+
+    /**
+     * Daily reference rates between two dates, as {@code {"rates": {"2024-01-02": {"EUR": 0.91, ...}, ...}}}.
+     * Fetched as a bulk download bounded by the backfill timeout, apart from the live rate path.
+     */
+    public Mono<Map<String, Object>> fetchTimeSeries(String baseCur, LocalDate from, LocalDate to) {
+        return webClientUtil.fetchBulk(frankfurterUrl + "/" + from + ".." + to + "?base=" + baseCur, history.getBackfillTimeout());
+    }
+}
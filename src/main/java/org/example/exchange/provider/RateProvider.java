@@ -0,0 +1,14 @@
+package org.example.exchange.provider;
+
+import org.example.exchange.model.RateQuotes;
+import reactor.core.publisher.Mono;
+
+/**
+ * One upstream exchange rate feed. Implementations return every rate they know for the base
+ * currency, with lower-case currency codes, or an empty Mono when the feed has no answer.
+ */
+public interface RateProvider {
+    String getName();
+
+    Mono<RateQuotes> fetchRates(String baseCur);
+}
@@ -0,0 +1,67 @@
+package org.example.exchange.replication;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable hash ring assigning each base currency to one node. Every node is placed at {@code virtualNodes}
+ * points so bases spread evenly, and adding or removing a node only moves the bases next to its points.
+ * Nodes that are configured with the same list build the same ring, whatever the order of the list.
+ */
+public final class ConsistentHashRing {
+
+    private final long[] points;
+    private final String[] owners;
+
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        List<String> distinct = nodes.stream().distinct().sorted().toList();
+        if (distinct.isEmpty() || virtualNodes < 1) {
+            throw new IllegalArgumentException("A hash ring needs at least one node and one virtual node per node");
+        }
+
+        long[][] placed = new long[distinct.size() * virtualNodes][];
+        int index = 0;
+        for (int node = 0; node < distinct.size(); node++) {
+            for (int replica = 0; replica < virtualNodes; replica++) {
+                placed[index++] = new long[]{hash(distinct.get(node) + "#" + replica), node};
+            }
+        }
+        // ties are broken by node order, so they resolve identically everywhere
+        Arrays.sort(placed, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+
+        this.points = new long[placed.length];
+        this.owners = new String[placed.length];
+        for (int i = 0; i < placed.length; i++) {
+            points[i] = placed[i][0];
+            owners[i] = distinct.get((int) placed[i][1]);
+        }
+    }
+
+    /**
+     * The node at the first point clockwise from the key's hash.
+     */
+    public String ownerOf(String key) {
+        int index = Arrays.binarySearch(points, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 mixer for avalanche. Unlike
+     * {@link String#hashCode()} this spreads short, similar keys such as currency codes across the ring.
+     */
+    static long hash(String key) {
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001B3L;
+        }
+        hash = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+        hash = (hash ^ (hash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 33);
+    }
+}
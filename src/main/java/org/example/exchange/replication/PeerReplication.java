@@ -0,0 +1,190 @@
+package org.example.exchange.replication;
+
+import org.example.exchange.cache.RateCache;
+import org.example.exchange.config.ExchangeRateProperties;
+import org.example.exchange.model.RateTable;
+import org.example.exchange.model.RateTableCodec;
+import org.example.exchange.utils.CircuitBreaker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Shares rate tables between instances. Each base currency is owned by one node of a consistent-hash ring
+ * over the configured peers; only the owner fetches it from upstream, and every other node asks the owner
+ * first. Upstream traffic therefore stays at one fetch per base and expiry however many nodes run. A peer
+ * that is down, slow or disagrees about ownership answers nothing and the caller falls back to upstream.
+ * Since the owner may refresh from upstream before it answers, a peer is given at least as long as that refresh
+ * can take; a shorter wait would fetch the same base twice and count the owner's refresh as its failure.
+ */
+@Component
+@ConditionalOnProperty(value = "exchange-rate.replication.enabled", havingValue = "true")
+public class PeerReplication {
+
+    private static final Logger log = LoggerFactory.getLogger(PeerReplication.class);
+
+    public static final String PATH = "/replication/rates/";
+    public static final MediaType MEDIA_TYPE = MediaType.APPLICATION_OCTET_STREAM;
+
+    private static final int MAGIC = 0x52525031;
+
+    /**
+     * A table as held by its owner, with the time the owner stored it so copies expire together.
+     */
+    public record Replica(String base, RateTable rateTable, Instant timestamp) {
+    }
+
+    private final WebClient webClient;
+    private final Duration timeout;
+    private final String selfUrl;
+    private final ConsistentHashRing ring;
+    private final Map<String, CircuitBreaker> circuitBreakers = new TreeMap<>();
+    private final LongAdder peerHits = new LongAdder();
+    private final LongAdder peerMisses = new LongAdder();
+    private final LongAdder peerFailures = new LongAdder();
+    private final LongAdder peerSkipped = new LongAdder();
+    private final LongAdder served = new LongAdder();
+
+    public PeerReplication(WebClient webClient, ExchangeRateProperties exchangeRateProperties) {
+        this.webClient = webClient;
+        ExchangeRateProperties.Replication replication = exchangeRateProperties.getReplication();
+        Duration ownerRefresh = exchangeRateProperties.getAdmission().getQueueTimeout()
+                .plus(exchangeRateProperties.getAggregation().getProviderTimeout());
+        if (replication.getTimeout().compareTo(ownerRefresh) < 0) {
+            log.warn("exchange-rate.replication.timeout {} is shorter than an owner's upstream refresh, using {}",
+                    replication.getTimeout(), ownerRefresh);
+            this.timeout = ownerRefresh;
+        } else {
+            this.timeout = replication.getTimeout();
+        }
+        if (replication.getSelfUrl() == null) {
+            throw new IllegalStateException("exchange-rate.replication.self-url is required when replication is enabled");
+        }
+        this.selfUrl = normalize(replication.getSelfUrl());
+        List<String> nodes = new ArrayList<>();
+        nodes.add(selfUrl);
+        replication.getPeers().forEach(peer -> nodes.add(normalize(peer)));
+        this.ring = new ConsistentHashRing(nodes, replication.getVirtualNodes());
+        ExchangeRateProperties.Resilience resilience = exchangeRateProperties.getResilience();
+        nodes.stream().filter(node -> !node.equals(selfUrl)).forEach(node -> circuitBreakers.put(node,
+                new CircuitBreaker(resilience.getFailureThreshold(), resilience.getOpenDuration())));
+    }
+
+    public boolean isOwner(String base) {
+        return selfUrl.equals(ring.ownerOf(base));
+    }
+
+    public String ownerOf(String base) {
+        return ring.ownerOf(base);
+    }
+
+    /**
+     * Asks the owner of {@code base} for its table, which the owner refreshes first if its copy has expired.
+     * Completes empty when this node is the owner, the owner cannot help or its circuit is open; a dead owner
+     * thus costs the replication timeout only until its breaker opens.
+     */
+    public Mono<Replica> fetch(String base) {
+        if (isOwner(base)) {
+            return Mono.empty();
+        }
+        String owner = ownerOf(base);
+        CircuitBreaker circuitBreaker = circuitBreakers.get(owner);
+        return Mono.defer(() -> {
+            if (!circuitBreaker.tryAcquire()) {
+                peerSkipped.increment();
+                return Mono.<Replica>empty();
+            }
+            return webClient.get().uri(owner + PATH + "{base}", base)
+                    .accept(MEDIA_TYPE)
+                    .exchangeToMono(response -> response.statusCode().is2xxSuccessful()
+                            ? response.bodyToMono(byte[].class).map(body -> decode(base, body))
+                            : response.releaseBody().then(Mono.<Replica>empty()))
+                    .timeout(timeout)
+                    .doOnSuccess(replica -> circuitBreaker.onSuccess())
+                    .doOnError(e -> circuitBreaker.onFailure())
+                    .doOnCancel(circuitBreaker::onCancel)
+                    .doOnNext(replica -> peerHits.increment())
+                    .switchIfEmpty(Mono.fromRunnable(peerMisses::increment))
+                    .onErrorResume(e -> {
+                        peerFailures.increment();
+                        log.debug("Peer {} did not answer for {}: {}", owner, base, e.toString());
+                        return Mono.empty();
+                    });
+        });
+    }
+
+    public void recordServed() {
+        served.increment();
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, String> circuits = new TreeMap<>();
+        circuitBreakers.forEach((peer, circuitBreaker) -> circuits.put(peer, circuitBreaker.getState().name()));
+        return Map.of(
+                "self", selfUrl,
+                "peerHits", peerHits.sum(),
+                "peerMisses", peerMisses.sum(),
+                "peerFailures", peerFailures.sum(),
+                "peerSkipped", peerSkipped.sum(),
+                "served", served.sum(),
+                "circuits", circuits
+        );
+    }
+
+    public static byte[] encode(String base, RateCache.Entry entry) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeUTF(base);
+            out.writeLong(entry.getTimestamp().toEpochMilli());
+            RateTableCodec.write(entry.getRateTable(), out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads the owner's answer for {@code base}. A table for another base is refused, and a timestamp from the
+     * owner's future is taken as now so a skewed clock cannot keep the copy alive past its expiry.
+     */
+    public static Replica decode(String base, byte[] body) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(body))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a replicated rate table");
+            }
+            String replicatedBase = in.readUTF();
+            if (!replicatedBase.equals(base)) {
+                throw new IOException("Asked for " + base + " but the peer sent " + replicatedBase);
+            }
+            Instant now = Instant.now();
+            Instant timestamp = Instant.ofEpochMilli(in.readLong());
+            return new Replica(base, RateTableCodec.read(base, in), timestamp.isAfter(now) ? now : timestamp);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String normalize(String url) {
+        String trimmed = url.trim();
+        return trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+    }
+}
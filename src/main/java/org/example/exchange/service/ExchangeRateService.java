@@ -1,5 +1,9 @@
 package org.example.exchange.service;
 
+import org.example.exchange.cache.RenderedResponseCache;
+import org.example.exchange.model.BatchRateRequest;
+import org.example.exchange.model.RateTable;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
@@ -7,6 +11,10 @@ import java.util.Map;
 
 public interface ExchangeRateService {
     Mono<Map<String, Object>> getAverageExchangeRates(String baseCur, List<String> symbols);
+    Mono<RenderedResponseCache.RenderedResponse> getRenderedExchangeRates(String baseCur, List<String> symbols);
+    Mono<List<Map<String, Object>>> getBatchExchangeRates(List<BatchRateRequest.Item> items, String pivot);
+    Flux<Map<String, Object>> streamExchangeRates(String baseCur, List<String> symbols);
+    Mono<RateTable> refreshRateTable(String baseCur);
     Map<String, Object> calculateAverageRates(String baseCur, List<Map<String, Object>> formattedResponses, List<String> symbols);
 }
 
@@ -1,104 +1,337 @@
 package org.example.exchange.service.impl;
 
+import org.example.exchange.cache.RateCache;
+import org.example.exchange.cache.RenderedResponseCache;
+import org.example.exchange.config.ExchangeRateProperties;
+import org.example.exchange.limit.AdmissionRejectedException;
+import org.example.exchange.limit.UpstreamAdmission;
+import org.example.exchange.model.BatchRateRequest;
+import org.example.exchange.model.FixedPoint;
+import org.example.exchange.model.RateAverager;
+import org.example.exchange.model.RateQuotes;
+import org.example.exchange.model.RateTable;
+import org.example.exchange.provider.RateProvider;
+import org.example.exchange.replication.PeerReplication;
 import org.example.exchange.service.ExchangeRateService;
-import org.example.exchange.utils.WebClientUtil;
+import org.example.exchange.trace.RequestTrace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
-import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 public class ExchangeRateServiceImpl implements ExchangeRateService {
 
-    @Autowired
-    private WebClientUtil webClientUtil;
-
-    @Value("${exchange-rate.urls.frankfurter-url}")
-    private String frankfurterUrl;
+    private static final Logger log = LoggerFactory.getLogger(ExchangeRateServiceImpl.class);
 
-    @Value("${exchange-rate.urls.primary-currency-url}")
-    private String primaryCurrencyUrl;
+    @Autowired
+    private List<RateProvider> rateProviders;
 
-    @Value("${exchange-rate.urls.fallback-currency-url}")
-    private String fallbackCurrencyUrl;
+    @Autowired
+    private ExchangeRateProperties exchangeRateProperties;
 
     @Value("${cache-expiry-seconds}")
     private int cacheExpirySeconds;
 
-    private static class CacheEntry {
-        Instant timestamp;
-        Map<String, BigDecimal> rates;
+    @Autowired
+    private RateCache rateCache;
 
-        CacheEntry(Map<String, BigDecimal> rates) {
-            this.timestamp = Instant.now();
-            this.rates = rates;
-        }
-    }
+    @Autowired
+    private RenderedResponseCache renderedResponseCache;
 
-    private final Map<String, CacheEntry> cache = new ConcurrentHashMap<>();
+    @Autowired
+    private UpstreamAdmission upstreamAdmission;
+
+    @Autowired(required = false)
+    private PeerReplication peerReplication;
+
+    private final Map<String, Mono<RateTable>> inFlightRequests = new ConcurrentHashMap<>();
+
+    /**
+     * A triangulated response body and the pivot table it was derived from, whose version tags the response.
+     */
+    private record Triangulated(RateTable pivotTable, Map<String, Object> body) {
+    }
 
 
     @Override
     public Mono<Map<String, Object>> getAverageExchangeRates(String baseCur, List<String> symbols) {
-        String cacheKey = baseCur.toLowerCase() + ":" + String.join(",", symbols.stream().map(String::toLowerCase).sorted().toList());
-        CacheEntry cachedResult = cache.get(cacheKey);
+        String cacheKey = baseCur.toLowerCase();
+        Mono<Map<String, Object>> direct = Mono.defer(() -> getRateTable(cacheKey)
+                .map(rateTable -> Map.of("base", baseCur, "rates", rateTable.project(symbols))));
 
+        if (isTriangulated(cacheKey)) {
+            return triangulate(baseCur, symbols, exchangeRateProperties.getTriangulation().getPivots())
+                    .map(Triangulated::body)
+                    .switchIfEmpty(direct);
+        }
+        return direct;
+    }
 
-        if (cachedResult != null && Instant.now().isBefore(cachedResult.timestamp.plusSeconds(cacheExpirySeconds))) {
-            return Mono.just(Map.of("base", baseCur, "rates", cachedResult.rates));
+    @Override
+    public Mono<RenderedResponseCache.RenderedResponse> getRenderedExchangeRates(String baseCur, List<String> symbols) {
+        String cacheKey = baseCur.toLowerCase();
+        Mono<RenderedResponseCache.RenderedResponse> direct = Mono.defer(() -> getRateTable(cacheKey)
+                .map(rateTable -> renderedResponseCache.get(baseCur, symbols, rateTable)));
+
+        if (isTriangulated(cacheKey)) {
+            return triangulate(baseCur, symbols, exchangeRateProperties.getTriangulation().getPivots())
+                    .map(triangulated -> renderedResponseCache.render(triangulated.body(),
+                            triangulated.pivotTable().getVersion(), baseCur, symbols))
+                    .switchIfEmpty(direct);
         }
+        return direct;
+    }
 
-        String frankfurterUrlWithParams = frankfurterUrl + "/latest?base=" + baseCur + "&symbols=" + String.join(",", symbols);
-        String primaryCurrencyUrlWithParams = primaryCurrencyUrl + "/currencies/" + baseCur + ".json";
-        String fallbackCurrencyUrlWithParams = fallbackCurrencyUrl + "/currencies/" + baseCur + ".json";
+    private boolean isTriangulated(String cacheKey) {
+        ExchangeRateProperties.Triangulation triangulation = exchangeRateProperties.getTriangulation();
+        return triangulation.isEnabled() && !triangulation.getPivots().contains(cacheKey);
+    }
 
+    /**
+     * Answers from the first pivot table that quotes {@code baseCur}, reporting which pivot was used,
+     * the worst-case rounding error of the derived rates and the age of the pivot table. Completes empty when
+     * that error exceeds the configured bound, so the caller fetches the base directly instead.
+     */
+    private Mono<Triangulated> triangulate(String baseCur, List<String> symbols, List<String> pivots) {
+        String from = baseCur.toLowerCase();
+        double maxAllowedError = exchangeRateProperties.getTriangulation().getMaxRelativeError();
+        return Flux.fromIterable(pivots)
+                .concatMap(pivot -> getRateTable(pivot).onErrorResume(e -> Mono.empty()))
+                .filter(pivotTable -> pivotTable.getRate(from) != null)
+                .next()
+                .flatMap(pivotTable -> {
+                    Map<String, BigDecimal> rates = new HashMap<>(Math.max(4, symbols.size() * 2));
+                    double maxRelativeError = 0;
+                    for (String symbol : symbols) {
+                        BigDecimal rate = pivotTable.getCrossRate(from, symbol);
+                        if (rate == null) {
+                            // the base's own table may quote what the pivot does not
+                            log.debug("Pivot {} does not quote {}, fetching {} directly", pivotTable.getBase(), symbol, from);
+                            return Mono.empty();
+                        }
+                        rates.put(symbol, rate);
+                        maxRelativeError = Math.max(maxRelativeError, pivotTable.getCrossRelativeError(from, symbol));
+                    }
+                    if (!(maxRelativeError <= maxAllowedError)) {
+                        log.debug("Triangulating {} through {} would be off by up to {}, fetching it directly",
+                                from, pivotTable.getBase(), maxRelativeError);
+                        return Mono.empty();
+                    }
 
-        Mono<Map<String, Object>> frankfurterResponse = webClientUtil.fetchDataWithFallback(frankfurterUrlWithParams, null)
-                .map(response -> WebClientUtil.formatExchangeData(baseCur, symbols,response))
-                .switchIfEmpty(Mono.error(new RuntimeException("Frankfurter API Failed")));
+                    RateCache.Entry pivotEntry = rateCache.peek(pivotTable.getBase());
+                    long ageSeconds = pivotEntry != null ? pivotEntry.age().toSeconds() : 0;
+                    return Mono.just(new Triangulated(pivotTable, Map.of(
+                            "base", baseCur,
+                            "rates", rates,
+                            "pivot", pivotTable.getBase(),
+                            "precision", Map.of("scale", FixedPoint.RATE_SCALE, "maxRelativeError", maxRelativeError),
+                            "staleness", Map.of("ageSeconds", ageSeconds, "stale", ageSeconds >= cacheExpirySeconds))));
+                });
+    }
 
-        Mono<Map<String, Object>> currencyApiResponse = webClientUtil.fetchDataWithFallback(primaryCurrencyUrlWithParams, fallbackCurrencyUrlWithParams)
-                .map(response -> WebClientUtil.formatExchangeData(baseCur, symbols,response))
-                .switchIfEmpty(Mono.error(new RuntimeException("Free Currency Exchange Rates API Failed")));
+    @Override
+    public Mono<List<Map<String, Object>>> getBatchExchangeRates(List<BatchRateRequest.Item> items, String pivot) {
+        Set<String> bases = new LinkedHashSet<>();
+        for (BatchRateRequest.Item item : items) {
+            bases.add(item.getBase().toLowerCase());
+        }
 
-        return frankfurterResponse
-                .concatWith(currencyApiResponse)
-                .collectList()
-                .map(responses -> calculateAverageRates(baseCur, responses, symbols))
-                .doOnNext(result -> {
-                    cache.put(cacheKey, new CacheEntry((Map<String, BigDecimal>) result.get("rates")));
+        ExchangeRateProperties.Triangulation triangulation = exchangeRateProperties.getTriangulation();
+        if (pivot == null && triangulation.isEnabled() && !triangulation.getPivots().isEmpty()) {
+            pivot = triangulation.getPivots().get(0);
+        }
+        String pivotBase = pivot;
+
+        Mono<Map<String, RateTable>> derived = pivotBase == null
+                ? Mono.just(Map.of())
+                : getRateTable(pivotBase.toLowerCase())
+                        .map(pivotTable -> rebaseAll(pivotTable, bases, triangulation.getMaxRelativeError()))
+                        .onErrorResume(e -> {
+                            log.warn("Pivot {} unavailable, fetching bases directly: {}", pivotBase, e.getMessage());
+                            return Mono.just(Map.of());
+                        });
+
+        return derived.flatMap(pivoted -> Flux.fromIterable(bases)
+                        .filter(base -> !pivoted.containsKey(base))
+                        .flatMap(base -> getRateTable(base)
+                                .map(rateTable -> Map.entry(base, rateTable))
+                                .onErrorResume(e -> Mono.empty()))
+                        .collectMap(Map.Entry::getKey, Map.Entry::getValue, () -> new HashMap<>(pivoted)))
+                .map(tables -> {
+                    List<Map<String, Object>> results = new ArrayList<>(items.size());
+                    for (BatchRateRequest.Item item : items) {
+                        String base = item.getBase().toLowerCase();
+                        RateTable rateTable = tables.get(base);
+                        if (rateTable == null) {
+                            results.add(Map.of("base", base, "error", "No exchange rate provider answered for " + base));
+                        } else {
+                            List<String> symbols = item.getSymbols();
+                            results.add(Map.of("base", base, "rates", symbols == null || symbols.isEmpty()
+                                    ? rateTable.toMap()
+                                    : rateTable.project(symbols.stream().map(String::toLowerCase).toList())));
+                        }
+                    }
+                    return results;
                 });
+    }
+
+    @Override
+    public Flux<Map<String, Object>> streamExchangeRates(String baseCur, List<String> symbols) {
+        String cacheKey = baseCur.toLowerCase();
+        return Flux.defer(() -> {
+            Map<String, BigDecimal> lastSent = new HashMap<>();
+            // subscribe to updates while the initial table is still loading, so no refresh falls in between
+            return Flux.mergeSequential(getRateTable(cacheKey), rateCache.updates(cacheKey))
+                    .handle((rateTable, sink) -> {
+                        Map<String, BigDecimal> changed = new HashMap<>();
+                        rateTable.project(symbols).forEach((symbol, rate) -> {
+                            if (!rate.equals(lastSent.put(symbol, rate))) {
+                                changed.put(symbol, rate);
+                            }
+                        });
+                        if (!changed.isEmpty()) {
+                            sink.next(Map.of("base", baseCur, "rates", changed));
+                        }
+                    });
+        });
+    }
 
+    /**
+     * Derives every base from the pivot table, leaving out bases whose pivot leg is too small to divide by
+     * within {@code maxRelativeError}; those are fetched directly like bases the pivot does not quote.
+     */
+    private static Map<String, RateTable> rebaseAll(RateTable pivotTable, Set<String> bases, double maxRelativeError) {
+        Map<String, RateTable> rebased = new HashMap<>(bases.size() * 2);
+        for (String base : bases) {
+            if (base.equals(pivotTable.getBase())) {
+                rebased.put(base, pivotTable);
+            } else if (pivotTable.getRebaseRelativeError(base) <= maxRelativeError) {
+                RateTable rateTable = pivotTable.rebase(base);
+                if (rateTable != null) {
+                    rebased.put(base, rateTable);
+                }
+            }
+        }
+        return rebased;
+    }
+
+    private Mono<RateTable> getRateTable(String cacheKey) {
+        return Mono.deferContextual(context -> {
+            RequestTrace trace = RequestTrace.current(context);
+            long lookupStart = System.nanoTime();
+            RateCache.Entry cachedResult = rateCache.get(cacheKey);
 
+            if (cachedResult != null) {
+                if (cachedResult.isFresh(cacheExpirySeconds)) {
+                    RequestTrace.record(trace, "cache", "hit", lookupStart);
+                    return Mono.just(cachedResult.getRateTable());
+                }
+                if (isServableStale(cachedResult)) {
+                    RequestTrace.record(trace, "cache", "stale", lookupStart);
+                    refreshInBackground(cacheKey);
+                    return Mono.just(cachedResult.getRateTable());
+                }
+            }
+            RequestTrace.record(trace, "cache", "miss", lookupStart);
+
+            // when upstream fetches are being shed, any table still retained beats an error
+            return RequestTrace.phase("load", loadRateTable(cacheKey)).onErrorResume(AdmissionRejectedException.class,
+                    e -> cachedResult != null ? Mono.just(cachedResult.getRateTable()) : Mono.error(e));
+        });
     }
 
     @Override
-    public Map<String, Object> calculateAverageRates(String baseCur, List<Map<String, Object>> formattedResponses, List<String> symbols) {
-        Map<String, BigDecimal> aggregatedRates = new HashMap<>();
-        int apiCount = (int) formattedResponses.stream().filter(response -> !response.isEmpty()).count();
+    public Mono<RateTable> refreshRateTable(String baseCur) {
+        return loadRateTable(baseCur.toLowerCase());
+    }
+
+    private boolean isServableStale(RateCache.Entry entry) {
+        ExchangeRateProperties.Cache cacheProperties = exchangeRateProperties.getCache();
+        return cacheProperties.isStaleWhileRevalidate()
+                && entry.isFresh(cacheExpirySeconds + cacheProperties.getMaxStaleSeconds());
+    }
+
+    private void refreshInBackground(String cacheKey) {
+        loadRateTable(cacheKey).subscribe(
+                rateTable -> {},
+                e -> log.warn("Background refresh of {} failed: {}", cacheKey, e.getMessage()));
+    }
+
+    private Mono<RateTable> loadRateTable(String cacheKey) {
+        return inFlightRequests.computeIfAbsent(cacheKey, this::newInFlightRequest);
+    }
 
+    /**
+     * A finished load only unregisters itself: by the time it completes, another caller may already have
+     * registered a newer load for the same key, which must stay shared.
+     */
+    private Mono<RateTable> newInFlightRequest(String key) {
+        AtomicReference<Mono<RateTable>> self = new AtomicReference<>();
+        Mono<RateTable> request = fetchFromPeer(key)
+                .switchIfEmpty(Mono.defer(() -> upstreamAdmission.admit(fetchRateTable(key))
+                        .doOnNext(rateTable -> rateCache.put(key, rateTable))))
+                .doFinally(signal -> inFlightRequests.remove(key, self.get()))
+                .cache();
+        self.set(request);
+        return request;
+    }
+
+    /**
+     * Takes the table from the node owning {@code cacheKey} when replication is on. The owner's timestamp is
+     * kept, so copies expire together and the owner is asked again only once its table is due for a refresh.
+     */
+    private Mono<RateTable> fetchFromPeer(String cacheKey) {
+        if (peerReplication == null || peerReplication.isOwner(cacheKey)) {
+            return Mono.empty();
+        }
+        return RequestTrace.phase("peer", peerReplication.fetch(cacheKey))
+                .doOnNext(replica -> rateCache.put(cacheKey, replica.rateTable(), replica.timestamp()))
+                .map(PeerReplication.Replica::rateTable);
+    }
+
+    private Mono<RateTable> fetchRateTable(String baseCur) {
+        ExchangeRateProperties.Aggregation aggregation = exchangeRateProperties.getAggregation();
+
+        return Flux.fromIterable(rateProviders)
+                .flatMap(provider -> provider.fetchRates(baseCur)
+                        .filter(rates -> !rates.isEmpty())
+                        .timeout(aggregation.getProviderTimeout())
+                        .onErrorResume(e -> Mono.empty()))
+                .take(aggregation.getQuorum())
+                .collectList()
+                .flatMap(responses -> responses.isEmpty()
+                        ? Mono.error(new RuntimeException("No exchange rate provider answered for " + baseCur))
+                        : RequestTrace.phase("aggregation", Mono.fromSupplier(() -> RateAverager.average(baseCur, responses))));
+    }
+
+    @Override
+    public Map<String, Object> calculateAverageRates(String baseCur, List<Map<String, Object>> formattedResponses, List<String> symbols) {
+        List<RateQuotes> responses = new ArrayList<>(formattedResponses.size());
         for (Map<String, Object> response : formattedResponses) {
+            @SuppressWarnings("unchecked")
             Map<String, BigDecimal> rates = (Map<String, BigDecimal>) response.get("rates");
+            RateQuotes.Builder quotes = RateQuotes.builder(rates.size());
             rates.forEach((currency, rate) -> {
                 if (symbols.contains(currency)) {
-                    aggregatedRates.merge(currency, rate, BigDecimal::add);
+                    quotes.add(currency, rate);
                 }
             });
+            responses.add(quotes.build());
         }
-        if (apiCount > 0) {
-            aggregatedRates.replaceAll((key, value) -> value.divide(BigDecimal.valueOf(apiCount), 6, BigDecimal.ROUND_HALF_UP));
-        }
-
-        return Map.of("base", baseCur, "rates", aggregatedRates);
+        return Map.of("base", baseCur, "rates", RateAverager.average(baseCur, responses).toMap());
     }
-
-
-
 }
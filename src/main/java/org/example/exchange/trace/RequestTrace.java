@@ -0,0 +1,148 @@
+package org.example.exchange.trace;
+
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Phase timings of one request, carried in the Reactor context under {@link #CONTEXT_KEY}. Phases may run
+ * concurrently (hedged fetches, parallel providers), so each is kept with its offset from the request start.
+ * Code that finds no trace in its context records nothing, which keeps background refreshes untraced.
+ */
+public final class RequestTrace {
+
+    public static final Class<RequestTrace> CONTEXT_KEY = RequestTrace.class;
+
+    private static final int MAX_PHASES = 64;
+
+    private final String name;
+    private final long startedAtMillis = System.currentTimeMillis();
+    private final long startNanos = System.nanoTime();
+    private volatile long durationNanos = -1;
+    private volatile String outcome;
+
+    // phase and detail, then offset and duration, interleaved; allocated on the first phase
+    private String[] labels;
+    private long[] timings;
+    private int phaseCount;
+
+    RequestTrace(String name) {
+        this.name = name;
+    }
+
+    public static RequestTrace current(ContextView context) {
+        return context.getOrDefault(CONTEXT_KEY, null);
+    }
+
+    /**
+     * Records {@code phase} as running from {@code phaseStartNanos} until now; a no-op without a trace.
+     */
+    public static void record(RequestTrace trace, String phase, String detail, long phaseStartNanos) {
+        if (trace != null) {
+            trace.record(phase, detail, phaseStartNanos, System.nanoTime());
+        }
+    }
+
+    /**
+     * Times {@code source} from subscription to termination as {@code phase} of the subscriber's trace. The phase
+     * is recorded before the result is passed on, so it is complete by the time the request finishes.
+     */
+    public static <T> Mono<T> phase(String phase, Mono<T> source) {
+        return Mono.deferContextual(context -> {
+            RequestTrace trace = current(context);
+            if (trace == null) {
+                return source;
+            }
+            long start = System.nanoTime();
+            return source
+                    .doOnSuccess(value -> record(trace, phase, "ok", start))
+                    .doOnError(e -> record(trace, phase, "error", start))
+                    .doOnCancel(() -> record(trace, phase, "cancelled", start));
+        });
+    }
+
+    synchronized void record(String phase, String detail, long phaseStartNanos, long phaseEndNanos) {
+        if (labels == null) {
+            labels = new String[8];
+            timings = new long[8];
+        } else if (phaseCount * 2 == labels.length) {
+            if (phaseCount == MAX_PHASES) {
+                return;
+            }
+            labels = Arrays.copyOf(labels, labels.length * 2);
+            timings = Arrays.copyOf(timings, timings.length * 2);
+        }
+        labels[phaseCount * 2] = phase;
+        labels[phaseCount * 2 + 1] = detail;
+        timings[phaseCount * 2] = phaseStartNanos - startNanos;
+        timings[phaseCount * 2 + 1] = phaseEndNanos - phaseStartNanos;
+        phaseCount++;
+    }
+
+    long finish(String outcome) {
+        this.outcome = outcome;
+        this.durationNanos = System.nanoTime() - startNanos;
+        return durationNanos;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Instant getStartedAt() {
+        return Instant.ofEpochMilli(startedAtMillis);
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public synchronized Map<String, Object> toMap() {
+        List<Map<String, Object>> phaseList = new ArrayList<>(phaseCount);
+        for (int i = 0; i < phaseCount; i++) {
+            Map<String, Object> phase = new LinkedHashMap<>();
+            phase.put("phase", labels[i * 2]);
+            if (labels[i * 2 + 1] != null) {
+                phase.put("detail", labels[i * 2 + 1]);
+            }
+            phase.put("offsetMs", timings[i * 2] / 1_000_000.0);
+            phase.put("durationMs", timings[i * 2 + 1] / 1_000_000.0);
+            phaseList.add(phase);
+        }
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("request", name);
+        map.put("startedAt", getStartedAt().toString());
+        map.put("durationMs", durationNanos / 1_000_000.0);
+        map.put("outcome", outcome);
+        map.put("phases", phaseList);
+        return map;
+    }
+
+    /**
+     * One-line form for logs: {@code GET /exchangeRates/usd 812.4ms 200 [cache miss +0.0ms 0.0ms, ...]}.
+     */
+    @Override
+    public synchronized String toString() {
+        StringBuilder line = new StringBuilder(name)
+                .append(' ').append(String.format("%.1fms", durationNanos / 1e6))
+                .append(' ').append(outcome)
+                .append(" [");
+        for (int i = 0; i < phaseCount; i++) {
+            if (i > 0) {
+                line.append(", ");
+            }
+            line.append(labels[i * 2]);
+            if (labels[i * 2 + 1] != null) {
+                line.append(' ').append(labels[i * 2 + 1]);
+            }
+            line.append(String.format(" +%.1fms %.1fms", timings[i * 2] / 1e6, timings[i * 2 + 1] / 1e6));
+        }
+        return line.append(']').toString();
+    }
+}
@@ -0,0 +1,178 @@
+package org.example.exchange.trace;
+
+import org.example.exchange.config.ExchangeRateProperties;
+import org.example.exchange.utils.TokenBucket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.reactivestreams.Subscription;
+import reactor.core.CoreSubscriber;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Operators;
+import reactor.util.context.Context;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Starts a {@link RequestTrace} per traced request and keeps the slowest ones. Requests under the slow
+ * threshold cost one trace object and a comparison when they finish; only slow ones take the lock that guards
+ * the retained set. Slow-request logs go through a token bucket so a bad minute cannot flood the log.
+ */
+@Component
+public class RequestTracer {
+
+    private static final Logger log = LoggerFactory.getLogger(RequestTracer.class);
+
+    private static final Comparator<RequestTrace> BY_DURATION = Comparator.comparingLong(RequestTrace::getDurationNanos);
+
+    private final ExchangeRateProperties.Tracing tracing;
+    private final long slowThresholdNanos;
+    private final TokenBucket slowLogs;
+    private final PriorityQueue<RequestTrace> slowest = new PriorityQueue<>(BY_DURATION);
+    private final LongAdder slowRequests = new LongAdder();
+    private final LongAdder suppressedLogs = new LongAdder();
+
+    public RequestTracer(ExchangeRateProperties exchangeRateProperties) {
+        this.tracing = exchangeRateProperties.getTracing();
+        this.slowThresholdNanos = tracing.getSlowThreshold().toNanos();
+        this.slowLogs = new TokenBucket(Math.max(tracing.getSlowLogsPerSecond(), 1e-3), 1);
+    }
+
+    /**
+     * Traces {@code request} from subscription to termination, naming the outcome of a value with {@code outcome}.
+     */
+    public <T> Mono<T> trace(String name, Mono<T> request, Function<? super T, String> outcome) {
+        if (!tracing.isEnabled()) {
+            return request;
+        }
+        return request.transform(Operators.<T, T>lift((scannable, actual) ->
+                new TracingSubscriber<>(actual, new RequestTrace(name), outcome)));
+    }
+
+    /**
+     * Puts the trace into the context seen upstream and finishes it on the first terminal signal, before passing
+     * the signal on. One subscriber does what contextWrite and three doOn operators would, which keeps the cost
+     * on the cache-hit path to a single extra operator.
+     */
+    private final class TracingSubscriber<T> implements CoreSubscriber<T>, Subscription {
+
+        private static final AtomicIntegerFieldUpdater<TracingSubscriber> FINISHED =
+                AtomicIntegerFieldUpdater.newUpdater(TracingSubscriber.class, "finished");
+
+        private final CoreSubscriber<? super T> actual;
+        private final RequestTrace trace;
+        private final Function<? super T, String> outcome;
+        private final Context context;
+        private Subscription subscription;
+        private volatile int finished;
+
+        TracingSubscriber(CoreSubscriber<? super T> actual, RequestTrace trace, Function<? super T, String> outcome) {
+            this.actual = actual;
+            this.trace = trace;
+            this.outcome = outcome;
+            this.context = actual.currentContext().put(RequestTrace.CONTEXT_KEY, trace);
+        }
+
+        @Override
+        public Context currentContext() {
+            return context;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+            actual.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(T value) {
+            if (FINISHED.compareAndSet(this, 0, 1)) {
+                finish(trace, outcome.apply(value));
+            }
+            actual.onNext(value);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            if (FINISHED.compareAndSet(this, 0, 1)) {
+                finish(trace, "error");
+            }
+            actual.onError(error);
+        }
+
+        @Override
+        public void onComplete() {
+            if (FINISHED.compareAndSet(this, 0, 1)) {
+                finish(trace, "empty");
+            }
+            actual.onComplete();
+        }
+
+        @Override
+        public void request(long n) {
+            subscription.request(n);
+        }
+
+        @Override
+        public void cancel() {
+            if (FINISHED.compareAndSet(this, 0, 1)) {
+                finish(trace, "cancelled");
+            }
+            subscription.cancel();
+        }
+    }
+
+    void finish(RequestTrace trace, String outcome) {
+        if (trace.finish(outcome) < slowThresholdNanos) {
+            return;
+        }
+        slowRequests.increment();
+        retain(trace);
+        if (slowLogs.tryAcquire() == 0) {
+            long suppressed = suppressedLogs.sumThenReset();
+            log.warn("Slow request {}{}", trace, suppressed > 0 ? " (" + suppressed + " similar suppressed)" : "");
+        } else {
+            suppressedLogs.increment();
+        }
+    }
+
+    private synchronized void retain(RequestTrace trace) {
+        evictExpired();
+        if (slowest.size() < tracing.getSlowestRetained()) {
+            slowest.add(trace);
+        } else if (!slowest.isEmpty() && BY_DURATION.compare(trace, slowest.peek()) > 0) {
+            slowest.poll();
+            slowest.add(trace);
+        }
+    }
+
+    private void evictExpired() {
+        Instant cutoff = Instant.now().minus(tracing.getWindow());
+        slowest.removeIf(trace -> trace.getStartedAt().isBefore(cutoff));
+    }
+
+    /**
+     * Slow requests started within the window, slowest first.
+     */
+    public synchronized List<RequestTrace> getSlowest() {
+        evictExpired();
+        List<RequestTrace> traces = new ArrayList<>(slowest);
+        traces.sort(BY_DURATION.reversed());
+        return traces;
+    }
+
+    public long getSlowRequestCount() {
+        return slowRequests.sum();
+    }
+
+    public ExchangeRateProperties.Tracing getTracing() {
+        return tracing;
+    }
+}
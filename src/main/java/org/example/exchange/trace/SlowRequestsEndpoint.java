@@ -0,0 +1,33 @@
+package org.example.exchange.trace;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@code /actuator/slowrequests}: the slowest recent requests with their phase breakdown.
+ */
+@Component
+@Endpoint(id = "slowrequests")
+public class SlowRequestsEndpoint {
+
+    private final RequestTracer requestTracer;
+
+    public SlowRequestsEndpoint(RequestTracer requestTracer) {
+        this.requestTracer = requestTracer;
+    }
+
+    @ReadOperation
+    public Map<String, Object> slowRequests() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", requestTracer.getTracing().isEnabled());
+        result.put("thresholdMs", requestTracer.getTracing().getSlowThreshold().toMillis());
+        result.put("windowSeconds", requestTracer.getTracing().getWindow().toSeconds());
+        result.put("slowRequestsTotal", requestTracer.getSlowRequestCount());
+        result.put("requests", requestTracer.getSlowest().stream().map(RequestTrace::toMap).toList());
+        return result;
+    }
+}
@@ -0,0 +1,74 @@
+package org.example.exchange.utils;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free closed/open/half-open breaker. After {@code failureThreshold} consecutive failures calls are rejected
+ * for {@code openDuration}; then a single trial call decides whether to close again or stay open.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile long openedAt;
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+    }
+
+    public boolean tryAcquire() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN && System.nanoTime() - openedAt >= openDurationNanos) {
+            return state.compareAndSet(State.OPEN, State.HALF_OPEN);
+        }
+        return false;
+    }
+
+    public void onSuccess() {
+        consecutiveFailures.set(0);
+        state.set(State.CLOSED);
+    }
+
+    /**
+     * Failures are only counted while closed or on the trial call. A call started before the breaker opened may
+     * fail afterwards; it says nothing new, so it must not push the end of the open period out.
+     */
+    public void onFailure() {
+        State current = state.get();
+        if (current == State.HALF_OPEN
+                || current == State.CLOSED && consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            open(current);
+        }
+    }
+
+    /**
+     * A call that was abandoned without a verdict, e.g. the losing side of a hedged request.
+     * An abandoned trial call sends the breaker back to open so another trial is allowed later.
+     */
+    public void onCancel() {
+        if (state.get() == State.HALF_OPEN) {
+            open(State.HALF_OPEN);
+        }
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    private void open(State from) {
+        openedAt = System.nanoTime();
+        state.compareAndSet(from, State.OPEN);
+    }
+}
@@ -0,0 +1,63 @@
+package org.example.exchange.utils;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps the most recent latency samples of one upstream host in a ring buffer. Percentiles are recomputed
+ * every {@code RECOMPUTE_EVERY} samples and read from volatile fields, so the request path never sorts.
+ */
+public class LatencyTracker {
+
+    private static final int WINDOW = 256;
+    private static final int RECOMPUTE_EVERY = 16;
+
+    private final AtomicLongArray samples = new AtomicLongArray(WINDOW);
+    private final AtomicLong count = new AtomicLong();
+    private volatile long p95Nanos = -1;
+    private volatile long p99Nanos = -1;
+
+    public void record(long elapsedNanos) {
+        long n = count.getAndIncrement();
+        samples.set((int) (n % WINDOW), elapsedNanos);
+        if ((n + 1) % RECOMPUTE_EVERY == 0) {
+            recompute(Math.min(n + 1, WINDOW));
+        }
+    }
+
+    /**
+     * Records a failed or timed-out call and recomputes at once: the host has just exceeded its bound, and
+     * waiting for the next scheduled recompute would keep that bound for up to {@code RECOMPUTE_EVERY} more calls.
+     */
+    public void recordFailure(long elapsedNanos) {
+        long n = count.getAndIncrement();
+        samples.set((int) (n % WINDOW), elapsedNanos);
+        recompute(Math.min(n + 1, WINDOW));
+    }
+
+    public long getSampleCount() {
+        return count.get();
+    }
+
+    /**
+     * @return the 95th percentile in nanoseconds, or -1 until enough samples were recorded
+     */
+    public long getP95Nanos() {
+        return p95Nanos;
+    }
+
+    public long getP99Nanos() {
+        return p99Nanos;
+    }
+
+    private void recompute(long size) {
+        long[] sorted = new long[(int) size];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = samples.get(i);
+        }
+        Arrays.sort(sorted);
+        p95Nanos = sorted[(int) Math.ceil(sorted.length * 0.95) - 1];
+        p99Nanos = sorted[(int) Math.ceil(sorted.length * 0.99) - 1];
+    }
+}
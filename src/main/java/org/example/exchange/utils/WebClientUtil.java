@@ -1,54 +1,337 @@
 package org.example.exchange.utils;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.example.exchange.config.ExchangeRateProperties;
+import org.example.exchange.model.RateQuotes;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 @Component
 public class WebClientUtil {
 
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final int MAX_PAYLOAD_BYTES = 4 * 1024 * 1024;
+
     private final WebClient webClient;
 
+    private final ExchangeRateProperties.Resilience resilience;
+
+    private final Map<String, UpstreamHost> upstreamHosts = new ConcurrentHashMap<>();
+
+    private final Cache<String, Revalidation<?>> revalidations;
+
+    /**
+     * Validators of the last successful response from one URL together with its decoded body,
+     * which is reused as-is when the upstream answers 304 Not Modified. Kept no longer than the rate table
+     * built from it, and bounded like the rate cache with room for each provider's host.
+     */
+    private record Revalidation<T>(String etag, String lastModified, T body) {
+    }
+
+    /**
+     * Put in the subscriber context of every guarded call and marked expired just before its timeout cancels
+     * the exchange, so the metrics filter can tell a timeout from a cancel by a hedge or a satisfied quorum.
+     */
+    public static final class Deadline {
+        private volatile boolean expired;
+
+        public boolean isExpired() {
+            return expired;
+        }
+    }
+
+    /**
+     * Breaker and latency window for one upstream host. Timeouts follow the observed p99 and hedged
+     * fallback requests fire after the observed p95, both clamped to the configured bounds. Failed calls are
+     * sampled too and each consecutive timeout doubles the next one, so a host that slows past its timeout
+     * pulls the bound up instead of timing out forever; a half-open trial always gets the maximum timeout.
+     */
+    private class UpstreamHost {
+        final CircuitBreaker circuitBreaker = new CircuitBreaker(resilience.getFailureThreshold(), resilience.getOpenDuration());
+        final LatencyTracker latencyTracker = new LatencyTracker();
+        final AtomicInteger consecutiveTimeouts = new AtomicInteger();
+
+        boolean isWarm() {
+            return latencyTracker.getSampleCount() >= resilience.getMinSamples() && latencyTracker.getP99Nanos() > 0;
+        }
+
+        Duration timeout() {
+            if (!isWarm() || circuitBreaker.getState() == CircuitBreaker.State.HALF_OPEN) {
+                return resilience.getMaxTimeout();
+            }
+            Duration adaptive = Duration.ofNanos((long) (latencyTracker.getP99Nanos() * resilience.getTimeoutMultiplier()));
+            adaptive = clamp(adaptive, resilience.getMinTimeout(), resilience.getMaxTimeout());
+            int backoff = Math.min(consecutiveTimeouts.get(), 16);
+            return clamp(adaptive.multipliedBy(1L << backoff), resilience.getMinTimeout(), resilience.getMaxTimeout());
+        }
+
+        Duration hedgeDelay() {
+            if (!resilience.isHedging() || !isWarm()) {
+                return null;
+            }
+            return clamp(Duration.ofNanos(latencyTracker.getP95Nanos()), resilience.getMinHedgeDelay(), resilience.getMaxTimeout());
+        }
+    }
+
     public WebClientUtil(WebClient webClient) {
+        this(webClient, new ExchangeRateProperties());
+    }
+
+    public WebClientUtil(WebClient webClient, ExchangeRateProperties exchangeRateProperties) {
+        this(webClient, exchangeRateProperties, 300);
+    }
+
+    @Autowired
+    public WebClientUtil(WebClient webClient, ExchangeRateProperties exchangeRateProperties,
+                         @Value("${cache-expiry-seconds}") long cacheExpirySeconds) {
         this.webClient = webClient;
+        this.resilience = exchangeRateProperties.getResilience();
+        ExchangeRateProperties.Cache cache = exchangeRateProperties.getCache();
+        this.revalidations = Caffeine.newBuilder()
+                .maximumSize(cache.getMaximumSize() * 3)
+                .expireAfterWrite(Duration.ofSeconds(cache.retentionSeconds(cacheExpirySeconds)))
+                .build();
     }
 
     public Mono<Map<String, Object>> fetchDataWithFallback(String primaryUrl, String fallbackUrl) {
-        return webClient.get().uri(primaryUrl).retrieve().bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
-                .timeout(Duration.ofSeconds(5))
-                .onErrorResume(e -> fallbackUrl != null
-                        ? webClient.get().uri(fallbackUrl).retrieve().bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
-                        .timeout(Duration.ofSeconds(5))
-                        .onErrorResume( ex-> Mono.empty())
-                        : Mono.empty());
+        return fetchWithFallback(primaryUrl, fallbackUrl, url -> webClient.get().uri(url)
+                .retrieve()
+                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {}));
     }
 
-    public static Map<String, Object> formatExchangeData(String baseCur, List<String> symbols, Map<String, Object> response) {
-        Map<String, BigDecimal> formattedRates = new HashMap<>();
+    public Mono<RateQuotes> fetchRatesWithFallback(String primaryUrl, String fallbackUrl, String ratesField) {
+        return fetchWithFallback(primaryUrl, fallbackUrl, url -> fetchRates(url, ratesField));
+    }
 
-        if (response.containsKey("rates")) {
-            Map<String, Object> rates = (Map<String, Object>) response.get("rates");
-            rates.forEach((currency, value) -> {
-                if (symbols.contains(currency.toLowerCase()) && value instanceof Number) {
-                    formattedRates.put(currency.toLowerCase(), BigDecimal.valueOf(((Number) value).doubleValue()));
+    /**
+     * One-off GET for bulk downloads such as history backfills. It bypasses revalidation, the breaker and the
+     * latency window, so a large, slow response neither trips the host nor stretches the timeouts of live fetches.
+     */
+    public Mono<Map<String, Object>> fetchBulk(String url, Duration timeout) {
+        return webClient.get().uri(url)
+                .retrieve()
+                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
+                .timeout(timeout);
+    }
+
+    public Map<String, Object> getUpstreamHealth() {
+        Map<String, Object> health = new TreeMap<>();
+        upstreamHosts.forEach((host, upstreamHost) -> health.put(host, Map.of(
+                "circuit", upstreamHost.circuitBreaker.getState().name(),
+                "samples", upstreamHost.latencyTracker.getSampleCount(),
+                "p95Ms", upstreamHost.latencyTracker.getP95Nanos() / 1_000_000.0,
+                "timeoutMs", upstreamHost.timeout().toMillis()
+        )));
+        return health;
+    }
+
+    private <T> Mono<T> fetchWithFallback(String primaryUrl, String fallbackUrl, Function<String, Mono<T>> fetch) {
+        Mono<T> primary = guarded(primaryUrl, fetch);
+        if (fallbackUrl == null) {
+            return primary.onErrorResume(e -> Mono.empty());
+        }
+
+        Mono<T> fallback = guarded(fallbackUrl, fetch).onErrorResume(e -> Mono.empty());
+        Duration hedgeDelay = upstreamHost(primaryUrl).hedgeDelay();
+        if (hedgeDelay == null) {
+            return primary.onErrorResume(e -> fallback);
+        }
+
+        return Mono.defer(() -> {
+            Sinks.Empty<Void> primaryFailed = Sinks.empty();
+            Mono<T> primaryAttempt = primary
+                    .switchIfEmpty(Mono.error(new IllegalStateException("Empty response from " + primaryUrl)))
+                    .doOnError(e -> primaryFailed.tryEmitEmpty());
+            Mono<T> fallbackAttempt = Mono.firstWithSignal(Mono.delay(hedgeDelay).then(), primaryFailed.asMono())
+                    .then(fallback);
+            return Mono.firstWithValue(primaryAttempt, fallbackAttempt)
+                    .onErrorResume(e -> Mono.empty());
+        });
+    }
+
+    private <T> Mono<T> guarded(String url, Function<String, Mono<T>> fetch) {
+        UpstreamHost upstreamHost = upstreamHost(url);
+        return Mono.defer(() -> {
+            if (!upstreamHost.circuitBreaker.tryAcquire()) {
+                return Mono.error(new IllegalStateException("Circuit open for " + url));
+            }
+            long start = System.nanoTime();
+            Deadline deadline = new Deadline();
+            return fetch.apply(url)
+                    .timeout(Mono.delay(upstreamHost.timeout()).doOnNext(tick -> deadline.expired = true))
+                    .contextWrite(context -> context.put(Deadline.class, deadline))
+                    .doOnSuccess(result -> {
+                        upstreamHost.latencyTracker.record(System.nanoTime() - start);
+                        upstreamHost.consecutiveTimeouts.set(0);
+                        upstreamHost.circuitBreaker.onSuccess();
+                    })
+                    .doOnError(e -> {
+                        // a timed-out call took at least its timeout; leaving it out would pin the window below it
+                        upstreamHost.latencyTracker.recordFailure(System.nanoTime() - start);
+                        if (e instanceof TimeoutException) {
+                            upstreamHost.consecutiveTimeouts.incrementAndGet();
+                        }
+                        upstreamHost.circuitBreaker.onFailure();
+                    })
+                    // a cancelled call, usually a hedge loser, says nothing about how long the host takes
+                    .doOnCancel(upstreamHost.circuitBreaker::onCancel);
+        });
+    }
+
+    private UpstreamHost upstreamHost(String url) {
+        return upstreamHosts.computeIfAbsent(hostOf(url), host -> new UpstreamHost());
+    }
+
+    private static String hostOf(String url) {
+        int start = url.indexOf("://");
+        start = start < 0 ? 0 : start + 3;
+        int end = url.indexOf('/', start);
+        return end < 0 ? url.substring(start) : url.substring(start, end);
+    }
+
+    private static Duration clamp(Duration value, Duration min, Duration max) {
+        return value.compareTo(min) < 0 ? min : value.compareTo(max) > 0 ? max : value;
+    }
+
+    private Mono<RateQuotes> fetchRates(String url, String ratesField) {
+        return fetchConditionally(url, url + '#' + ratesField,
+                response -> DataBufferUtils.join(response.bodyToFlux(DataBuffer.class), MAX_PAYLOAD_BYTES)
+                        .map(buffer -> {
+                            try (InputStream in = buffer.asInputStream(true)) {
+                                return parseRates(in, ratesField);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        }));
+    }
+
+    /**
+     * GETs {@code url}, revalidating with the ETag/Last-Modified of the previous response stored under
+     * {@code cacheKey}. A 304 skips both the transfer and the decoding by returning the previous body.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Mono<T> fetchConditionally(String url, String cacheKey, Function<ClientResponse, Mono<T>> decode) {
+        return Mono.defer(() -> {
+            Revalidation<T> previous = (Revalidation<T>) revalidations.getIfPresent(cacheKey);
+            return webClient.get().uri(url)
+                    .headers(headers -> {
+                        if (previous != null && previous.etag() != null) {
+                            headers.set(HttpHeaders.IF_NONE_MATCH, previous.etag());
+                        }
+                        if (previous != null && previous.lastModified() != null) {
+                            headers.set(HttpHeaders.IF_MODIFIED_SINCE, previous.lastModified());
+                        }
+                    })
+                    .exchangeToMono(response -> {
+                        if (response.statusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED) && previous != null) {
+                            return response.releaseBody().thenReturn(previous.body());
+                        }
+                        if (!response.statusCode().is2xxSuccessful()) {
+                            return response.createError();
+                        }
+                        HttpHeaders headers = response.headers().asHttpHeaders();
+                        String etag = headers.getFirst(HttpHeaders.ETAG);
+                        String lastModified = headers.getFirst(HttpHeaders.LAST_MODIFIED);
+                        return decode.apply(response).doOnNext(body -> {
+                            if (etag != null || lastModified != null) {
+                                revalidations.put(cacheKey, new Revalidation<>(etag, lastModified, body));
+                            } else {
+                                revalidations.invalidate(cacheKey);
+                            }
+                        });
+                    });
+        });
+    }
+
+    /**
+     * Streams through the payload and collects the numeric members of the top-level {@code ratesField} object,
+     * skipping everything else without materializing it.
+     */
+    public static RateQuotes parseRates(InputStream in, String ratesField) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return RateQuotes.empty();
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.START_OBJECT && ratesField.equalsIgnoreCase(field)) {
+                    RateQuotes.Builder quotes = RateQuotes.builder(256);
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String currency = parser.currentName().toLowerCase(Locale.ROOT);
+                        if (parser.nextToken().isNumeric()) {
+                            if (!quotes.add(currency, parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength())) {
+                                quotes.add(currency, parser.getDecimalValue());
+                            }
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    return quotes.build();
                 }
-            });
+                parser.skipChildren();
+            }
+            return RateQuotes.empty();
+        }
+    }
+
+    public static Map<String, Object> formatExchangeData(String baseCur, List<String> symbols, Map<String, Object> response) {
+        Object rates = null;
+        if (response.containsKey("rates")) {
+            rates = response.get("rates");
         } else if (response.containsKey(baseCur.toLowerCase())) {
-            Map<String, Object> rates = (Map<String, Object>) response.get(baseCur.toLowerCase());
-            rates.forEach((currency, value) -> {
-                if (symbols.contains(currency.toLowerCase()) && value instanceof Number) {
-                    formattedRates.put(currency.toLowerCase(), BigDecimal.valueOf(((Number) value).doubleValue()));
+            rates = response.get(baseCur.toLowerCase());
+        }
+
+        Map<String, BigDecimal> formattedRates = toRates(rates);
+        if (symbols != null) {
+            formattedRates.keySet().retainAll(symbols);
+        }
+
+        return Map.of("base", baseCur.toLowerCase(), "rates", formattedRates);
+    }
+
+    public static Map<String, BigDecimal> toRates(Object rates) {
+        Map<String, BigDecimal> formattedRates = new HashMap<>();
+
+        if (rates instanceof Map<?, ?> rateMap) {
+            rateMap.forEach((currency, value) -> {
+                if (value instanceof Number) {
+                    formattedRates.put(currency.toString().toLowerCase(), BigDecimal.valueOf(((Number) value).doubleValue()));
                 }
             });
         }
 
-        return Map.of("base", baseCur.toLowerCase(), "rates", formattedRates);
+        return formattedRates;
     }
 }
@@ -0,0 +1,176 @@
+package org.example.exchange;
+
+import org.example.exchange.config.ExchangeRateProperties;
+import org.example.exchange.limit.AdmissionRejectedException;
+import org.example.exchange.limit.ClientRateLimiter;
+import org.example.exchange.limit.UpstreamAdmission;
+import org.example.exchange.utils.TokenBucket;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdmissionControlTest {
+
+    @Test
+    void testTokenBucketAllowsBurstThenThrottles() {
+        TokenBucket bucket = new TokenBucket(1, 3);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, bucket.tryAcquire());
+        }
+        long waitNanos = bucket.tryAcquire();
+        assertTrue(waitNanos > 0 && waitNanos <= Duration.ofSeconds(1).toNanos());
+    }
+
+    @Test
+    void testRateLimiterKeepsOneBucketPerClient() {
+        ExchangeRateProperties properties = new ExchangeRateProperties();
+        properties.getRateLimit().setRequestsPerSecond(1);
+        properties.getRateLimit().setBurst(1);
+        properties.getRateLimit().setApiKeys(List.of("key-a", "key-b"));
+        ClientRateLimiter limiter = new ClientRateLimiter(properties);
+
+        assertEquals(0, limiter.tryAcquire("key-a", "10.0.0.1"));
+        assertTrue(limiter.tryAcquire("key-a", "10.0.0.2") > 0, "API key should win over the client address");
+        assertEquals(0, limiter.tryAcquire(null, "10.0.0.1"));
+        assertEquals(0, limiter.tryAcquire("key-b", "10.0.0.1"));
+        assertEquals(1L, limiter.getStatistics().get("rejected"));
+    }
+
+    @Test
+    void testUnknownApiKeysShareTheClientAddressBucket() {
+        ExchangeRateProperties properties = new ExchangeRateProperties();
+        properties.getRateLimit().setRequestsPerSecond(1);
+        properties.getRateLimit().setBurst(1);
+        ClientRateLimiter limiter = new ClientRateLimiter(properties);
+
+        assertEquals(0, limiter.tryAcquire("random-1", "10.0.0.1"));
+        assertTrue(limiter.tryAcquire("random-2", "10.0.0.1") > 0, "A fresh unknown key must not buy a fresh burst");
+        assertEquals(1L, limiter.getStatistics().get("clients"));
+    }
+
+    @Test
+    void testConfiguredPeersAreExemptOnTheReplicationPathOnly() {
+        ExchangeRateProperties properties = new ExchangeRateProperties();
+        properties.getReplication().setEnabled(true);
+        properties.getReplication().setPeers(List.of("http://10.0.0.2:8080/", "http://10.0.0.3:8080"));
+        ClientRateLimiter limiter = new ClientRateLimiter(properties);
+
+        assertTrue(limiter.isExempt("/replication/rates/usd", "10.0.0.2"));
+        assertFalse(limiter.isExempt("/exchangeRates/usd", "10.0.0.2"));
+        assertFalse(limiter.isExempt("/replication/rates/usd", "10.0.0.9"));
+        assertFalse(new ClientRateLimiter(new ExchangeRateProperties()).isExempt("/replication/rates/usd", "10.0.0.2"));
+    }
+
+    @Test
+    void testFetchesOverCapQueueAndAreShedWhenQueueIsFull() {
+        ExchangeRateProperties properties = new ExchangeRateProperties();
+        properties.getAdmission().setMaxInFlightFetches(1);
+        properties.getAdmission().setMaxQueuedFetches(1);
+        properties.getAdmission().setQueueTimeout(Duration.ofSeconds(5));
+        UpstreamAdmission admission = new UpstreamAdmission(properties);
+
+        Sinks.One<String> first = Sinks.one();
+        admission.admit(first.asMono()).subscribe();
+        Mono<String> second = admission.admit(Mono.just("second")).cache();
+        second.subscribe();
+
+        StepVerifier.create(admission.admit(Mono.just("third")))
+                .expectError(AdmissionRejectedException.class)
+                .verify();
+
+        first.tryEmitValue("first");
+        StepVerifier.create(second)
+                .expectNext("second")
+                .verifyComplete();
+        assertEquals(Map.of("inFlight", 0, "queued", 0, "rejected", 1L), admission.getStatistics());
+    }
+
+    @Test
+    void testQueuedFetchWaitsForPermitAndTimesOut() {
+        ExchangeRateProperties properties = new ExchangeRateProperties();
+        properties.getAdmission().setMaxInFlightFetches(1);
+        properties.getAdmission().setQueueTimeout(Duration.ofMillis(200));
+        UpstreamAdmission admission = new UpstreamAdmission(properties);
+
+        Sinks.One<String> first = Sinks.one();
+        admission.admit(first.asMono()).subscribe();
+
+        StepVerifier.create(admission.admit(Mono.just("queued")))
+                .expectError(AdmissionRejectedException.class)
+                .verify(Duration.ofSeconds(2));
+
+        Mono<String> waiting = admission.admit(Mono.just("queued"));
+        StepVerifier.create(waiting)
+                .then(() -> first.tryEmitValue("first"))
+                .expectNext("queued")
+                .verifyComplete();
+        assertEquals(0, admission.getStatistics().get("inFlight"));
+    }
+
+    @Test
+    void testCancelAfterGrantReleasesPermitOnce() {
+        ExchangeRateProperties properties = new ExchangeRateProperties();
+        properties.getAdmission().setMaxInFlightFetches(1);
+        properties.getAdmission().setQueueTimeout(Duration.ofSeconds(5));
+        UpstreamAdmission admission = new UpstreamAdmission(properties);
+
+        Sinks.One<String> first = Sinks.one();
+        admission.admit(first.asMono()).subscribe();
+
+        StepVerifier.create(admission.admit(Mono.<String>never()))
+                .then(() -> first.tryEmitValue("first"))
+                .then(() -> assertEquals(Map.of("inFlight", 1, "queued", 0, "rejected", 0L), admission.getStatistics()))
+                .thenCancel()
+                .verify(Duration.ofSeconds(2));
+
+        assertEquals(0, admission.getStatistics().get("inFlight"), "The granted permit must be released exactly once");
+        StepVerifier.create(admission.admit(Mono.just("next")))
+                .expectNext("next")
+                .verifyComplete();
+        assertEquals(0, admission.getStatistics().get("inFlight"));
+    }
+
+    @Test
+    void testConcurrentEnqueueAndReleaseLeaveNoWaiterBehindAFreePermit() throws InterruptedException {
+        ExchangeRateProperties properties = new ExchangeRateProperties();
+        properties.getAdmission().setMaxInFlightFetches(2);
+        properties.getAdmission().setMaxQueuedFetches(10000);
+        properties.getAdmission().setQueueTimeout(Duration.ofSeconds(2));
+        UpstreamAdmission admission = new UpstreamAdmission(properties);
+
+        int fetches = 5000;
+        CountDownLatch done = new CountDownLatch(fetches);
+        AtomicInteger rejections = new AtomicInteger();
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            for (int i = 0; i < fetches; i++) {
+                // fetches finish on other threads, so releases race with the callers' enqueues
+                callers.execute(() -> admission.admit(Mono.fromCallable(() -> "fetched").subscribeOn(Schedulers.parallel()))
+                        .subscribe(value -> {}, e -> {
+                            rejections.incrementAndGet();
+                            done.countDown();
+                        }, done::countDown));
+            }
+            assertTrue(done.await(30, TimeUnit.SECONDS), "Every fetch must finish");
+        } finally {
+            callers.shutdownNow();
+        }
+
+        assertEquals(0, rejections.get(), "No waiter may time out while a permit is free");
+        assertEquals(Map.of("inFlight", 0, "queued", 0, "rejected", 0L), admission.getStatistics());
+    }
+}
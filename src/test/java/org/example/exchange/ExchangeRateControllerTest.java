@@ -0,0 +1,76 @@
+package org.example.exchange;
+
+import org.example.exchange.cache.RenderedResponseCache;
+import org.example.exchange.config.ExchangeRateProperties;
+import org.example.exchange.controller.ExchangeRateController;
+import org.example.exchange.model.RateTable;
+import org.example.exchange.service.ExchangeRateService;
+import org.example.exchange.trace.RequestTracer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ExchangeRateControllerTest {
+
+    private ExchangeRateService exchangeRateService;
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    void setUp() {
+        exchangeRateService = mock(ExchangeRateService.class);
+        ExchangeRateController controller = new ExchangeRateController();
+        ReflectionTestUtils.setField(controller, "exchangeRateService", exchangeRateService);
+        ReflectionTestUtils.setField(controller, "requestTracer", new RequestTracer(new ExchangeRateProperties()));
+        webTestClient = WebTestClient.bindToController(controller).build();
+    }
+
+    @Test
+    void testMatchingEntityTagIsAnsweredWithNotModified() {
+        String eTag = render("\"", "\"");
+
+        webTestClient.get().uri("/exchangeRates/USD?symbols=EUR").exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, eTag);
+
+        webTestClient.get().uri("/exchangeRates/usd?symbols=eur").header(HttpHeaders.IF_NONE_MATCH, eTag).exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, eTag)
+                .expectBody().isEmpty();
+
+        webTestClient.get().uri("/exchangeRates/usd?symbols=eur").header(HttpHeaders.IF_NONE_MATCH, "\"other\"").exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    void testWeakEntityTagMatchesEitherForm() {
+        String weakTag = render("W/\"", "\"");
+        String opaqueTag = weakTag.substring(2);
+
+        webTestClient.get().uri("/exchangeRates/usd?symbols=eur").header(HttpHeaders.IF_NONE_MATCH, weakTag).exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, weakTag);
+
+        webTestClient.get().uri("/exchangeRates/usd?symbols=eur").header(HttpHeaders.IF_NONE_MATCH, "\"other\", " + opaqueTag).exchange()
+                .expectStatus().isNotModified();
+    }
+
+    private String render(String prefix, String suffix) {
+        RateTable table = RateTable.of("usd", Map.of("eur", new BigDecimal("0.8767")));
+        String eTag = prefix + table.getVersion() + "-1" + suffix;
+        byte[] body = "{\"base\":\"usd\",\"rates\":{\"eur\":0.876700}}".getBytes(StandardCharsets.UTF_8);
+        when(exchangeRateService.getRenderedExchangeRates("usd", List.of("eur")))
+                .thenReturn(Mono.just(new RenderedResponseCache.RenderedResponse(table, body, eTag)));
+        return eTag;
+    }
+}
@@ -0,0 +1,385 @@
+package org.example.exchange;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.example.exchange.cache.RateCache;
+import org.example.exchange.config.ExchangeRateProperties;
+import org.example.exchange.limit.AdmissionRejectedException;
+import org.example.exchange.limit.UpstreamAdmission;
+import org.example.exchange.model.BatchRateRequest;
+import org.example.exchange.model.RateTable;
+import org.example.exchange.provider.CurrencyApiRateProvider;
+import org.example.exchange.provider.FrankfurterRateProvider;
+import org.example.exchange.provider.RateProvider;
+import org.example.exchange.service.impl.ExchangeRateServiceImpl;
+import org.example.exchange.utils.WebClientUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExchangeRateServiceImplTest {
+
+    private MockWebServer mockWebServer;
+    private ExchangeRateProperties exchangeRateProperties;
+    private ExchangeRateServiceImpl exchangeRateService;
+    private RateCache rateCache;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        mockWebServer = new MockWebServer();
+        mockWebServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String path = request.getPath();
+                if (path.startsWith("/frankfurter/latest")) {
+                    return json("{\"base\": \"USD\", \"date\": \"2025-06-05\", \"rates\": {"
+                            + "\"EUR\": 0.8764,"
+                            + "\"GBP\": 0.7381,"
+                            + "\"JPY\": 143.62"
+                            + "}}");
+                }
+                if (path.startsWith("/primary/currencies/usd.json")) {
+                    return json("{\"date\": \"2025-06-05\", \"usd\": {"
+                            + "\"eur\": 0.8770,"
+                            + "\"gbp\": 0.7385,"
+                            + "\"jpy\": 143.70,"
+                            + "\"btc\": 0.0000095"
+                            + "}}");
+                }
+                if (path.startsWith("/slow/")) {
+                    return json("{\"rates\": {\"EUR\": 0.9000}}").setHeadersDelay(2, TimeUnit.SECONDS);
+                }
+                return new MockResponse().setResponseCode(404);
+            }
+        });
+        mockWebServer.start();
+
+        exchangeRateProperties = new ExchangeRateProperties();
+        exchangeRateProperties.setUrls(Map.of(
+                "frankfurter-url", url("/frankfurter"),
+                "primary-currency-url", url("/primary"),
+                "fallback-currency-url", url("/fallback")));
+        WebClientUtil webClientUtil = new WebClientUtil(WebClient.builder().build());
+
+        exchangeRateService = new ExchangeRateServiceImpl();
+        ReflectionTestUtils.setField(exchangeRateService, "rateProviders", List.of(
+                new FrankfurterRateProvider(webClientUtil, exchangeRateProperties),
+                new CurrencyApiRateProvider(webClientUtil, exchangeRateProperties)));
+        ReflectionTestUtils.setField(exchangeRateService, "exchangeRateProperties", exchangeRateProperties);
+        rateCache = new RateCache(new CaffeineCacheManager());
+        ReflectionTestUtils.setField(exchangeRateService, "rateCache", rateCache);
+        ReflectionTestUtils.setField(exchangeRateService, "upstreamAdmission", new UpstreamAdmission(exchangeRateProperties));
+        ReflectionTestUtils.setField(exchangeRateService, "cacheExpirySeconds", 300);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        mockWebServer.shutdown();
+    }
+
+    @Test
+    void testDifferentSymbolSetsShareOneRateTable() {
+        StepVerifier.create(exchangeRateService.getAverageExchangeRates("usd", List.of("eur")))
+                .assertNext(result -> {
+                    Map<String, BigDecimal> rates = (Map<String, BigDecimal>) result.get("rates");
+                    assertEquals(1, rates.size());
+                    assertEquals(new BigDecimal("0.876700"), rates.get("eur"));
+                })
+                .verifyComplete();
+
+        StepVerifier.create(exchangeRateService.getAverageExchangeRates("usd", List.of("eur", "gbp", "btc", "xxx")))
+                .assertNext(result -> {
+                    Map<String, BigDecimal> rates = (Map<String, BigDecimal>) result.get("rates");
+                    assertEquals(3, rates.size());
+                    assertEquals(new BigDecimal("0.876700"), rates.get("eur"));
+                    assertEquals(new BigDecimal("0.738300"), rates.get("gbp"));
+                    // only currency-api quotes btc, so the full table must not divide it by the provider count
+                    assertEquals(new BigDecimal("0.000010"), rates.get("btc"));
+                })
+                .verifyComplete();
+
+        assertEquals(2, mockWebServer.getRequestCount(), "Second symbol set should be served from the cached table");
+    }
+
+    @Test
+    void testCurrencyQuotedByOneProviderIsAveragedOverItsOwnQuotes() {
+        StepVerifier.create(exchangeRateService.getAverageExchangeRates("usd", List.of("btc", "eur")))
+                .assertNext(result -> {
+                    Map<String, BigDecimal> rates = (Map<String, BigDecimal>) result.get("rates");
+                    assertEquals(new BigDecimal("0.000010"), rates.get("btc"));
+                    assertEquals(new BigDecimal("0.876700"), rates.get("eur"));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void testConcurrentMissesShareOneUpstreamFetch() {
+        Flux<Map<String, Object>> burst = Flux.range(0, 10)
+                .flatMap(i -> exchangeRateService.getAverageExchangeRates("usd", List.of("eur")));
+
+        StepVerifier.create(burst)
+                .expectNextCount(10)
+                .verifyComplete();
+
+        assertEquals(2, mockWebServer.getRequestCount(), "Concurrent misses should be coalesced into one fetch per provider");
+    }
+
+    @Test
+    void testQuorumDoesNotWaitForSlowestProvider() {
+        exchangeRateProperties.getAggregation().setQuorum(2);
+        ReflectionTestUtils.setField(exchangeRateService, "rateProviders", List.of(
+                frankfurter(url("/slow")),
+                frankfurter(url("/frankfurter")),
+                new CurrencyApiRateProvider(new WebClientUtil(WebClient.builder().build()), exchangeRateProperties)));
+
+        long start = System.nanoTime();
+        StepVerifier.create(exchangeRateService.getAverageExchangeRates("usd", List.of("eur")))
+                .assertNext(result -> {
+                    Map<String, BigDecimal> rates = (Map<String, BigDecimal>) result.get("rates");
+                    assertEquals(new BigDecimal("0.876700"), rates.get("eur"));
+                })
+                .verifyComplete();
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(1)) < 0,
+                "Aggregation should complete once the quorum has answered");
+    }
+
+    @Test
+    void testProviderFailureBelowQuorumStillAnswers() {
+        ReflectionTestUtils.setField(exchangeRateService, "rateProviders", List.of(
+                frankfurter(url("/missing")),
+                new CurrencyApiRateProvider(new WebClientUtil(WebClient.builder().build()), exchangeRateProperties)));
+
+        StepVerifier.create(exchangeRateService.getAverageExchangeRates("usd", List.of("gbp")))
+                .assertNext(result -> {
+                    Map<String, BigDecimal> rates = (Map<String, BigDecimal>) result.get("rates");
+                    assertEquals(new BigDecimal("0.738500"), rates.get("gbp"));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void testStaleEntryIsServedWhileRefreshingInBackground() throws InterruptedException {
+        exchangeRateProperties.getCache().setStaleWhileRevalidate(true);
+        ReflectionTestUtils.setField(exchangeRateService, "cacheExpirySeconds", 0);
+
+        StepVerifier.create(exchangeRateService.getAverageExchangeRates("usd", List.of("eur")))
+                .expectNextCount(1)
+                .verifyComplete();
+        assertEquals(2, mockWebServer.getRequestCount());
+
+        StepVerifier.create(exchangeRateService.getAverageExchangeRates("usd", List.of("eur")))
+                .assertNext(result -> assertEquals(new BigDecimal("0.876700"),
+                        ((Map<String, BigDecimal>) result.get("rates")).get("eur")))
+                .expectComplete()
+                .verify(Duration.ofMillis(50));
+
+        for (int i = 0; i < 4; i++) {
+            assertNotNull(mockWebServer.takeRequest(5, TimeUnit.SECONDS), "Stale hit should trigger a background refresh");
+        }
+    }
+
+    @Test
+    void testSaturatedUpstreamServesRetainedTable() {
+        ReflectionTestUtils.setField(exchangeRateService, "cacheExpirySeconds", 0);
+        rateCache.put("usd", RateTable.of("usd", Map.of("eur", new BigDecimal("0.9"))));
+        exchangeRateProperties.getAdmission().setMaxInFlightFetches(0);
+        exchangeRateProperties.getAdmission().setMaxQueuedFetches(0);
+
+        StepVerifier.create(exchangeRateService.getAverageExchangeRates("usd", List.of("eur")))
+                .assertNext(result -> assertEquals(new BigDecimal("0.900000"),
+                        ((Map<String, BigDecimal>) result.get("rates")).get("eur")))
+                .verifyComplete();
+        StepVerifier.create(exchangeRateService.getAverageExchangeRates("gbp", List.of("eur")))
+                .expectError(AdmissionRejectedException.class)
+                .verify();
+
+        assertEquals(0, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    void testBatchFetchesEachDistinctBaseOnce() {
+        List<BatchRateRequest.Item> items = List.of(
+                new BatchRateRequest.Item("USD", List.of("eur")),
+                new BatchRateRequest.Item("usd", List.of("GBP", "jpy")),
+                new BatchRateRequest.Item("usd", List.of()));
+
+        StepVerifier.create(exchangeRateService.getBatchExchangeRates(items, null))
+                .assertNext(results -> {
+                    assertEquals(3, results.size());
+                    assertEquals(new BigDecimal("0.876700"), ((Map<String, BigDecimal>) results.get(0).get("rates")).get("eur"));
+                    assertEquals(2, ((Map<String, BigDecimal>) results.get(1).get("rates")).size());
+                    assertEquals(4, ((Map<String, BigDecimal>) results.get(2).get("rates")).size());
+                })
+                .verifyComplete();
+
+        assertEquals(2, mockWebServer.getRequestCount(), "Repeated bases should share one fetch per provider");
+    }
+
+    @Test
+    void testBatchDerivesCrossRatesFromPivot() {
+        List<BatchRateRequest.Item> items = List.of(
+                new BatchRateRequest.Item("eur", List.of("gbp", "usd")),
+                new BatchRateRequest.Item("gbp", List.of("jpy")));
+
+        StepVerifier.create(exchangeRateService.getBatchExchangeRates(items, "usd"))
+                .assertNext(results -> {
+                    Map<String, BigDecimal> eur = (Map<String, BigDecimal>) results.get(0).get("rates");
+                    assertEquals(new BigDecimal("0.738300").divide(new BigDecimal("0.876700"), 6, RoundingMode.HALF_UP), eur.get("gbp"));
+                    assertEquals(BigDecimal.ONE.divide(new BigDecimal("0.876700"), 6, RoundingMode.HALF_UP), eur.get("usd"));
+                    Map<String, BigDecimal> gbp = (Map<String, BigDecimal>) results.get(1).get("rates");
+                    assertEquals(new BigDecimal("143.660000").divide(new BigDecimal("0.738300"), 6, RoundingMode.HALF_UP), gbp.get("jpy"));
+                })
+                .verifyComplete();
+
+        assertEquals(2, mockWebServer.getRequestCount(), "Every base should be derived from the single pivot fetch");
+    }
+
+    @Test
+    void testBatchFetchesBaseDirectlyWhenPivotLegIsTooCoarse() {
+        List<BatchRateRequest.Item> items = List.of(
+                new BatchRateRequest.Item("eur", List.of("gbp")),
+                new BatchRateRequest.Item("btc", List.of("eur")));
+
+        StepVerifier.create(exchangeRateService.getBatchExchangeRates(items, "usd"))
+                .assertNext(results -> {
+                    Map<String, BigDecimal> eur = (Map<String, BigDecimal>) results.get(0).get("rates");
+                    assertEquals(new BigDecimal("0.738300").divide(new BigDecimal("0.876700"), 6, RoundingMode.HALF_UP), eur.get("gbp"));
+                    // usd -> btc is stored as 0.000010, about 5% off, so btc is not derived from it
+                    Map<String, BigDecimal> btc = (Map<String, BigDecimal>) results.get(1).get("rates");
+                    assertEquals(new BigDecimal("0.876400"), btc.get("eur"));
+                })
+                .verifyComplete();
+
+        assertEquals(5, mockWebServer.getRequestCount(), "Only btc should be fetched directly, eur stays derived");
+    }
+
+    @Test
+    void testTriangulationAnswersEveryBaseFromPivotTable() {
+        exchangeRateProperties.getTriangulation().setEnabled(true);
+        exchangeRateProperties.getTriangulation().setPivots(List.of("usd"));
+
+        StepVerifier.create(exchangeRateService.getAverageExchangeRates("eur", List.of("gbp")))
+                .assertNext(result -> {
+                    Map<String, BigDecimal> rates = (Map<String, BigDecimal>) result.get("rates");
+                    assertEquals(1, rates.size());
+                    assertEquals(new BigDecimal("0.738300").divide(new BigDecimal("0.876700"), 6, RoundingMode.HALF_UP), rates.get("gbp"));
+                    assertEquals("usd", result.get("pivot"));
+                    double maxRelativeError = (double) ((Map<String, Object>) result.get("precision")).get("maxRelativeError");
+                    assertTrue(maxRelativeError > 0 && maxRelativeError < 1e-5);
+                    assertEquals(false, ((Map<String, Object>) result.get("staleness")).get("stale"));
+                })
+                .verifyComplete();
+
+        StepVerifier.create(exchangeRateService.getAverageExchangeRates("jpy", List.of("eur")))
+                .assertNext(result -> assertEquals("usd", result.get("pivot")))
+                .verifyComplete();
+
+        assertEquals(2, mockWebServer.getRequestCount(), "Triangulated bases should not be fetched upstream");
+    }
+
+    @Test
+    void testTriangulationFallsBackToDirectFetchWhenPivotLacksASymbol() {
+        exchangeRateProperties.getTriangulation().setEnabled(true);
+        exchangeRateProperties.getTriangulation().setPivots(List.of("usd"));
+
+        StepVerifier.create(exchangeRateService.getAverageExchangeRates("eur", List.of("gbp", "xxx")))
+                .assertNext(result -> {
+                    assertNull(result.get("pivot"), "A partial cross must not stand in for the base's own table");
+                    assertEquals(new BigDecimal("0.738100"), ((Map<String, BigDecimal>) result.get("rates")).get("gbp"));
+                })
+                .verifyComplete();
+
+        assertEquals(5, mockWebServer.getRequestCount(), "eur should be fetched directly after the pivot table");
+    }
+
+    @Test
+    void testTriangulationFallsBackToDirectFetchForTinyPivotLeg() {
+        exchangeRateProperties.getTriangulation().setEnabled(true);
+        exchangeRateProperties.getTriangulation().setPivots(List.of("usd"));
+
+        StepVerifier.create(exchangeRateService.getAverageExchangeRates("btc", List.of("eur")))
+                .assertNext(result -> {
+                    assertNull(result.get("pivot"), "btc should not be derived from a 0.000010 usd leg");
+                    assertEquals(new BigDecimal("0.876400"), ((Map<String, BigDecimal>) result.get("rates")).get("eur"));
+                })
+                .verifyComplete();
+
+        assertEquals(5, mockWebServer.getRequestCount(), "btc should be fetched directly after the pivot table");
+    }
+
+    @Test
+    void testStreamSendsOnlyChangedRates() {
+        StepVerifier.create(exchangeRateService.streamExchangeRates("usd", List.of("eur", "gbp")))
+                .assertNext(result -> assertEquals(2, ((Map<String, BigDecimal>) result.get("rates")).size()))
+                .then(() -> rateCache.put("usd", RateTable.of("usd", Map.of(
+                        "eur", new BigDecimal("0.8767"), "gbp", new BigDecimal("0.7383"), "jpy", new BigDecimal("150")))))
+                .then(() -> rateCache.put("usd", RateTable.of("usd", Map.of(
+                        "eur", new BigDecimal("0.8800"), "gbp", new BigDecimal("0.7383")))))
+                .assertNext(result -> assertEquals(Map.of("eur", new BigDecimal("0.880000")), result.get("rates")))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+
+        assertEquals(2, mockWebServer.getRequestCount(), "Updates should come from cache writes, not upstream calls");
+    }
+
+    @Test
+    void testStreamDeliversRefreshLandingWhileInitialTableLoads() {
+        StepVerifier.create(exchangeRateService.streamExchangeRates("usd", List.of("eur")))
+                // upstream answers after 100ms, so this write lands before the initial table is sent
+                .then(() -> rateCache.put("usd", RateTable.of("usd", Map.of("eur", new BigDecimal("0.8800")))))
+                .assertNext(result -> assertEquals(Map.of("eur", new BigDecimal("0.876700")), result.get("rates")))
+                .assertNext(result -> assertEquals(Map.of("eur", new BigDecimal("0.880000")), result.get("rates")))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void testFinishedStreamsLeaveNoUpdateSinkBehind() {
+        StepVerifier.create(exchangeRateService.streamExchangeRates("usd", List.of("eur")))
+                .expectNextCount(1)
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+
+        ReflectionTestUtils.setField(exchangeRateService, "rateProviders", List.of(frankfurter(url("/missing"))));
+        StepVerifier.create(exchangeRateService.streamExchangeRates("xyz", List.of("eur")))
+                .expectError()
+                .verify(Duration.ofSeconds(5));
+
+        assertTrue(rateCache.subscribedBases().isEmpty(), "Cancelled and failed streams should release their sinks");
+    }
+
+    private RateProvider frankfurter(String baseUrl) {
+        ExchangeRateProperties properties = new ExchangeRateProperties();
+        properties.setUrls(Map.of("frankfurter-url", baseUrl));
+        return new FrankfurterRateProvider(new WebClientUtil(WebClient.builder().build()), properties);
+    }
+
+    private String url(String path) {
+        return mockWebServer.url(path).toString().replaceAll("/$", "");
+    }
+
+    private static MockResponse json(String body) {
+        return new MockResponse()
+                .setHeadersDelay(100, TimeUnit.MILLISECONDS)
+                .setBody(body)
+                .setResponseCode(200)
+                .addHeader("Content-Type", "application/json");
+    }
+}
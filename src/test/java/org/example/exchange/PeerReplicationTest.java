@@ -0,0 +1,172 @@
+package org.example.exchange;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.example.exchange.cache.RateCache;
+import org.example.exchange.model.CurrencyIndex;
+import org.example.exchange.model.RateTable;
+import org.example.exchange.replication.ConsistentHashRing;
+import org.example.exchange.replication.PeerReplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PeerReplicationTest {
+
+    private static final List<String> BASES = List.of("usd", "eur", "gbp", "jpy", "chf", "cad", "aud", "sek");
+
+    @Test
+    void testRingSpreadsKeysAndMovesFewWhenNodeJoins() {
+        List<String> nodes = List.of("http://a:8080", "http://b:8080", "http://c:8080");
+        ConsistentHashRing ring = new ConsistentHashRing(nodes, 160);
+        ConsistentHashRing grown = new ConsistentHashRing(List.of("http://a:8080", "http://b:8080", "http://c:8080", "http://d:8080"), 160);
+
+        Map<String, Integer> owned = new HashMap<>();
+        int moved = 0;
+        for (int i = 0; i < 3000; i++) {
+            String key = "key-" + i;
+            String owner = ring.ownerOf(key);
+            owned.merge(owner, 1, Integer::sum);
+            if (!owner.equals(grown.ownerOf(key))) {
+                moved++;
+                assertEquals("http://d:8080", grown.ownerOf(key), "keys may only move to the new node");
+            }
+        }
+
+        nodes.forEach(node -> assertTrue(owned.get(node) > 700 && owned.get(node) < 1300, node + " owns " + owned.get(node)));
+        assertTrue(moved > 450 && moved < 1100, moved + " keys moved");
+    }
+
+    @Test
+    void testDecodeRefusesAnotherBaseAndClampsTheOwnersClock() {
+        RateCache rateCache = new RateCache(new CaffeineCacheManager());
+        rateCache.restore("usd", RateTable.of("usd", Map.of("eur", new BigDecimal("0.876700"))),
+                Instant.now().plusSeconds(3600));
+        byte[] body = PeerReplication.encode("usd", rateCache.peek("usd"));
+
+        assertThrows(UncheckedIOException.class, () -> PeerReplication.decode("eur", body));
+        PeerReplication.Replica replica = PeerReplication.decode("usd", body);
+        assertEquals(new BigDecimal("0.876700"), replica.rateTable().getRate("eur"));
+        assertFalse(replica.timestamp().isAfter(Instant.now()), "A copy must not outlive the owner's expiry");
+    }
+
+    @Test
+    void testDecodeRegistersCurrencyCodesOnly() {
+        RateCache rateCache = new RateCache(new CaffeineCacheManager());
+        rateCache.put("usd", RateTable.of("usd", Map.of(
+                "eur", new BigDecimal("0.876700"),
+                "peer-replica-junk", new BigDecimal("1.000000"))));
+        byte[] body = PeerReplication.encode("usd", rateCache.peek("usd"));
+        // the owner registered the code; a fresh node would not have it
+        assertTrue(CurrencyIndex.ordinalOf("peer-replica-junk") >= 0);
+
+        RateTable replicated = PeerReplication.decode("usd", body).rateTable();
+        assertEquals(1, replicated.size());
+        assertEquals(new BigDecimal("0.876700"), replicated.getRate("eur"));
+    }
+
+    /**
+     * Upstream answers slower than a cached answer needs but well within an owner's refresh, and the rate limit
+     * is on with just enough burst for the test's own requests: any peer request that timed out or was limited
+     * would show up as an extra upstream call.
+     */
+    @Test
+    void testNodesFetchEachBaseFromUpstreamOnce() throws Exception {
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        try (MockWebServer upstream = new MockWebServer()) {
+            upstream.setDispatcher(new Dispatcher() {
+                @Override
+                public MockResponse dispatch(RecordedRequest request) {
+                    upstreamCalls.incrementAndGet();
+                    String path = request.getPath();
+                    if (path.startsWith("/frankfurter/latest")) {
+                        return json("{\"rates\": {\"CNY\": 7.19, \"INR\": 85.6}}").setHeadersDelay(1, TimeUnit.SECONDS);
+                    }
+                    if (path.startsWith("/primary/currencies/")) {
+                        String base = path.substring("/primary/currencies/".length(), path.indexOf(".json"));
+                        return json("{\"date\": \"2025-06-05\", \"" + base + "\": {\"cny\": 7.18, \"inr\": 85.5}}")
+                                .setHeadersDelay(1, TimeUnit.SECONDS);
+                    }
+                    return new MockResponse().setResponseCode(404);
+                }
+            });
+            upstream.start();
+
+            List<Integer> ports = List.of(freePort(), freePort(), freePort());
+            String peers = String.join(",", ports.stream().map(port -> "http://localhost:" + port).toList());
+            List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+            try {
+                for (int port : ports) {
+                    nodes.add(new SpringApplicationBuilder(ExchangeApplication.class).run(
+                            "--server.port=" + port,
+                            "--exchange-rate.urls.frankfurter-url=" + upstream.url("/frankfurter").toString().replaceAll("/$", ""),
+                            "--exchange-rate.urls.primary-currency-url=" + upstream.url("/primary").toString().replaceAll("/$", ""),
+                            "--exchange-rate.urls.fallback-currency-url=" + upstream.url("/fallback").toString().replaceAll("/$", ""),
+                            "--exchange-rate.replication.enabled=true",
+                            "--exchange-rate.replication.self-url=http://localhost:" + port,
+                            "--exchange-rate.replication.peers=" + peers,
+                            "--exchange-rate.cache.snapshot.enabled=false",
+                            "--exchange-rate.cache.refresh-ahead.enabled=false",
+                            "--exchange-rate.history.enabled=false",
+                            "--exchange-rate.resilience.hedging=false",
+                            "--exchange-rate.rate-limit.enabled=true",
+                            "--exchange-rate.rate-limit.requests-per-second=0.01",
+                            "--exchange-rate.rate-limit.burst=" + BASES.size()));
+                }
+
+                HttpClient client = HttpClient.newHttpClient();
+                for (String base : BASES) {
+                    for (int port : ports) {
+                        HttpResponse<String> response = client.send(HttpRequest.newBuilder(
+                                URI.create("http://localhost:" + port + "/exchangeRates/" + base + "?symbols=cny,inr")).build(),
+                                HttpResponse.BodyHandlers.ofString());
+                        assertEquals(200, response.statusCode(), response.body());
+                    }
+                }
+
+                // one frankfurter and one primary currency-api call per base, however many nodes asked
+                assertEquals(BASES.size() * 2, upstreamCalls.get());
+                long peerHits = nodes.stream()
+                        .mapToLong(node -> (long) node.getBean(PeerReplication.class).getStatistics().get("peerHits"))
+                        .sum();
+                assertTrue(peerHits >= BASES.size(), "peer hits " + peerHits);
+            } finally {
+                nodes.forEach(ConfigurableApplicationContext::close);
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static MockResponse json(String body) {
+        return new MockResponse()
+                .setBody(body)
+                .setResponseCode(200)
+                .addHeader("Content-Type", "application/json");
+    }
+}
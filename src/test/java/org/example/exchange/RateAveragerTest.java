@@ -0,0 +1,110 @@
+package org.example.exchange;
+
+import org.example.exchange.model.RateAverager;
+import org.example.exchange.model.RateQuotes;
+import org.example.exchange.model.RateTable;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateAveragerTest {
+
+    @Test
+    void testAverageMatchesBigDecimalDivision() {
+        Random random = new Random(42);
+        String[] currencies = new String[500];
+        for (int i = 0; i < currencies.length; i++) {
+            currencies[i] = "t" + i;
+        }
+
+        for (int round = 0; round < 200; round++) {
+            int apiCount = 1 + random.nextInt(4);
+            double[][] values = new double[apiCount][currencies.length];
+            RateQuotes[] quotes = new RateQuotes[apiCount];
+            for (int api = 0; api < apiCount; api++) {
+                RateQuotes.Builder builder = RateQuotes.builder(currencies.length);
+                for (int i = 0; i < currencies.length; i++) {
+                    values[api][i] = random.nextDouble() * Math.pow(10, random.nextInt(16) - 8);
+                    char[] text = Double.toString(values[api][i]).toCharArray();
+                    assertTrue(builder.add(currencies[i], text, 0, text.length));
+                }
+                quotes[api] = builder.build();
+            }
+
+            RateTable table = RateAverager.average("xxx", List.of(quotes));
+
+            for (int i = 0; i < currencies.length; i++) {
+                BigDecimal sum = BigDecimal.ZERO;
+                for (int api = 0; api < apiCount; api++) {
+                    sum = sum.add(BigDecimal.valueOf(values[api][i]));
+                }
+                BigDecimal expected = sum.divide(BigDecimal.valueOf(apiCount), 6, RoundingMode.HALF_UP);
+                assertEquals(expected, table.getRate(currencies[i]));
+            }
+        }
+    }
+
+    @Test
+    void testParsesJsonNumberForms() {
+        RateQuotes.Builder builder = RateQuotes.builder(4);
+        assertTrue(builder.add("p0", "-0.5".toCharArray(), 0, 4));
+        assertTrue(builder.add("p1", "1.5E-7".toCharArray(), 0, 6));
+        assertTrue(builder.add("p2", "12e3".toCharArray(), 0, 4));
+        assertTrue(builder.add("p3", "0.000000000000000000000001".toCharArray(), 0, 26));
+        assertFalse(builder.add("p4", "1234567890123456789012".toCharArray(), 0, 22));
+        RateQuotes parsed = builder.build();
+
+        assertEquals(4, parsed.size());
+        assertEquals(0, new BigDecimal("-0.5").compareTo(parsed.getRate(0)));
+        assertEquals(0, new BigDecimal("0.00000015").compareTo(parsed.getRate(1)));
+        assertEquals(0, new BigDecimal("12000").compareTo(parsed.getRate(2)));
+        assertEquals(0, BigDecimal.ZERO.compareTo(parsed.getRate(3)));
+    }
+
+    @Test
+    void testSumsThatOverflowLongFallBackToBigDecimal() {
+        RateQuotes first = RateQuotes.builder(1).add("big", 9_000_000_000_000_000_000L, 6).build();
+        RateQuotes second = RateQuotes.builder(1).add("big", 8_000_000_000_000_000_000L, 6).build();
+
+        RateTable table = RateAverager.average("xxx", List.of(first, second));
+
+        assertEquals(new BigDecimal("8500000000000.000000"), table.getRate("big"));
+    }
+
+    @Test
+    void testEachCurrencyIsDividedByTheQuotesItHas() {
+        RateQuotes first = RateQuotes.builder(2).add("eur", 876_400, 6).add("btc", 9_500, 9).build();
+        RateQuotes second = RateQuotes.builder(1).add("eur", 877_000, 6).build();
+        RateQuotes third = RateQuotes.builder(1).add("eur", 877_600, 6).build();
+
+        RateTable table = RateAverager.average("usd", List.of(first, second, third));
+
+        assertEquals(new BigDecimal("0.877000"), table.getRate("eur"));
+        assertEquals(new BigDecimal("0.000010"), table.getRate("btc"));
+        // the baseline divided every sum by the response count, which gave a third of btc's only quote
+        assertNotEquals(new BigDecimal("0.0000095").divide(BigDecimal.valueOf(3), 6, RoundingMode.HALF_UP), table.getRate("btc"));
+    }
+
+    @Test
+    void testVersionFollowsContent() {
+        RateTable table = RateTable.of("usd", Map.of("eur", new BigDecimal("0.8767"), "gbp", new BigDecimal("0.7383")));
+
+        assertEquals(table.getVersion(), RateTable.of("usd", Map.of("gbp", new BigDecimal("0.738300"), "eur", new BigDecimal("0.8767"))).getVersion());
+        assertNotEquals(table.getVersion(), RateTable.of("usd", Map.of("eur", new BigDecimal("0.8768"), "gbp", new BigDecimal("0.7383"))).getVersion());
+        assertNotEquals(table.getVersion(), RateTable.of("eur", Map.of("eur", new BigDecimal("0.8767"), "gbp", new BigDecimal("0.7383"))).getVersion());
+    }
+
+    @Test
+    void testVersionIsTheSameOnEveryInstance() {
+        // entity tags are compared across restarts and instances, whose currency ordinals are registered in
+        // different orders, so the version is pinned to the table's content alone
+        assertEquals("8b945333179f2d25",
+                RateTable.of("usd", Map.of("eur", new BigDecimal("0.8767"), "gbp", new BigDecimal("0.7383"))).getVersion());
+    }
+}
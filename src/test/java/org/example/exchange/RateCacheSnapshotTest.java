@@ -0,0 +1,72 @@
+package org.example.exchange;
+
+import org.example.exchange.cache.RateCache;
+import org.example.exchange.cache.RateCacheSnapshot;
+import org.example.exchange.config.ExchangeRateProperties;
+import org.example.exchange.model.RateTable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateCacheSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testSnapshotRoundTripHonorsTtl() {
+        RateCache source = new RateCache(new CaffeineCacheManager());
+        source.put("usd", RateTable.of("usd", Map.of(
+                "eur", new BigDecimal("0.876700"),
+                "btc", new BigDecimal("0.000009"),
+                "vnd", new BigDecimal("26012.500000"))));
+        source.restore("gbp", RateTable.of("gbp", Map.of("usd", new BigDecimal("1.354800"))),
+                Instant.now().minusSeconds(600));
+        snapshot(source).write();
+
+        RateCache target = new RateCache(new CaffeineCacheManager());
+        snapshot(target).load();
+
+        RateCache.Entry restored = target.peek("usd");
+        assertNotNull(restored);
+        assertEquals(new BigDecimal("0.876700"), restored.getRateTable().getRate("eur"));
+        assertEquals(new BigDecimal("0.000009"), restored.getRateTable().getRate("btc"));
+        assertEquals(new BigDecimal("26012.500000"), restored.getRateTable().getRate("vnd"));
+        assertEquals(source.peek("usd").getTimestamp().toEpochMilli(), restored.getTimestamp().toEpochMilli());
+        assertNull(target.peek("gbp"), "Expired tables should not be restored");
+    }
+
+    @Test
+    void testSnapshotFromTheFutureIsTakenAsNow() {
+        RateCache source = new RateCache(new CaffeineCacheManager());
+        source.restore("usd", RateTable.of("usd", Map.of("eur", new BigDecimal("0.876700"))),
+                Instant.now().plus(Duration.ofDays(365)));
+        snapshot(source).write();
+
+        RateCache target = new RateCache(new CaffeineCacheManager());
+        snapshot(target).load();
+
+        assertFalse(target.peek("usd").getTimestamp().isAfter(Instant.now()),
+                "A skewed clock must not keep a restored table alive past its expiry");
+    }
+
+    private RateCacheSnapshot snapshot(RateCache rateCache) {
+        ExchangeRateProperties properties = new ExchangeRateProperties();
+        properties.getCache().getSnapshot().setPath(tempDir.resolve("rate-cache.snapshot").toString());
+
+        RateCacheSnapshot snapshot = new RateCacheSnapshot();
+        ReflectionTestUtils.setField(snapshot, "rateCache", rateCache);
+        ReflectionTestUtils.setField(snapshot, "exchangeRateProperties", properties);
+        ReflectionTestUtils.setField(snapshot, "cacheExpirySeconds", 300);
+        return snapshot;
+    }
+}
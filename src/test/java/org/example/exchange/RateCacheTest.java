@@ -0,0 +1,52 @@
+package org.example.exchange;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.example.exchange.cache.RateCache;
+import org.example.exchange.model.RateTable;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateCacheTest {
+
+    @Test
+    void testCacheIsBoundedAndCountsEvictions() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(RateCache.CACHE_NAME, Caffeine.newBuilder()
+                .maximumSize(2)
+                .executor(Runnable::run)
+                .recordStats()
+                .build());
+        RateCache rateCache = new RateCache(cacheManager);
+
+        for (String base : new String[]{"usd", "eur", "gbp", "jpy"}) {
+            rateCache.put(base, RateTable.of(base, Map.of("chf", BigDecimal.ONE)));
+        }
+
+        Map<String, Object> statistics = rateCache.getStatistics();
+        assertEquals(2L, statistics.get("size"));
+        assertEquals(2L, statistics.get("evictions"));
+    }
+
+    @Test
+    void testHottestBasesAreRankedByAccessCount() {
+        RateCache rateCache = new RateCache(new CaffeineCacheManager());
+        rateCache.put("usd", RateTable.of("usd", Map.of("eur", BigDecimal.ONE)));
+        rateCache.put("eur", RateTable.of("eur", Map.of("usd", BigDecimal.ONE)));
+        rateCache.put("gbp", RateTable.of("gbp", Map.of("usd", BigDecimal.ONE)));
+
+        for (int i = 0; i < 5; i++) {
+            rateCache.get("eur");
+        }
+        rateCache.get("usd");
+        rateCache.put("eur", RateTable.of("eur", Map.of("usd", BigDecimal.TEN)));
+
+        assertEquals(List.of("eur", "usd"), rateCache.hottestBases(5));
+        assertNotNull(rateCache.peek("gbp"));
+    }
+}
@@ -0,0 +1,121 @@
+package org.example.exchange;
+
+import org.example.exchange.config.ExchangeRateProperties;
+import org.example.exchange.history.RateHistoryStore;
+import org.example.exchange.model.RateTable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateHistoryStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRecordsAreQueryableByRangeAndSurviveReopen() throws IOException {
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        RateHistoryStore store = new RateHistoryStore(properties());
+        for (int day = 0; day < 1000; day++) {
+            store.record("usd", RateTable.of("usd", Map.of("eur", new BigDecimal(day).movePointLeft(3))), start.plusDays(day));
+        }
+        store.record("usd", RateTable.of("usd", Map.of("eur", new BigDecimal("9.5"))), start.plusDays(999));
+
+        Map<LocalDate, BigDecimal> range = rates(store.range("usd", "eur", start.plusDays(10), start.plusDays(12)));
+        assertEquals(Map.of(start.plusDays(10), new BigDecimal("0.010000"),
+                start.plusDays(11), new BigDecimal("0.011000"),
+                start.plusDays(12), new BigDecimal("0.012000")), range);
+
+        RateHistoryStore reopened = new RateHistoryStore(properties());
+        assertEquals(new BigDecimal("9.500000"), reopened.range("usd", "eur", start.plusDays(999), start.plusDays(999)).firstEntry().getValue().rate());
+        assertEquals(1000, reopened.range("usd", "eur", start, start.plusDays(2000)).size());
+    }
+
+    @Test
+    void testBackfillMergesOlderDaysWithoutOverwritingRecordedOnes() throws IOException {
+        RateHistoryStore store = new RateHistoryStore(properties());
+        LocalDate today = LocalDate.of(2025, 6, 5);
+        store.record("usd", RateTable.of("usd", Map.of("eur", new BigDecimal("0.8767"))), today);
+
+        NavigableMap<LocalDate, BigDecimal> backfill = new TreeMap<>();
+        backfill.put(today.minusDays(3), new BigDecimal("0.87"));
+        backfill.put(today.minusDays(1), new BigDecimal("0.88"));
+        backfill.put(today, new BigDecimal("0.99"));
+        store.recordAll("usd", "eur", backfill);
+
+        NavigableMap<LocalDate, RateHistoryStore.Point> range = store.range("usd", "eur", today.minusDays(5), today);
+        assertEquals(List.of(today.minusDays(3), today.minusDays(1), today), List.copyOf(range.keySet()));
+        assertEquals(new RateHistoryStore.Point(new BigDecimal("0.876700"), RateHistoryStore.Source.LIVE), range.get(today));
+        assertEquals(RateHistoryStore.Source.BACKFILL, range.get(today.minusDays(1)).source());
+
+        assertEquals(Map.of(today.minusDays(3), new BigDecimal("0.870000")),
+                rates(store.range("usd", "eur", today.minusDays(2), today.minusDays(2))), "A day without a record falls back to the last earlier one");
+    }
+
+    @Test
+    void testMissingRangesCoverUnrecordedWeekdaysAcrossSymbols() throws IOException {
+        RateHistoryStore store = new RateHistoryStore(properties());
+        LocalDate monday = LocalDate.of(2025, 6, 2);
+        store.record("usd", RateTable.of("usd", Map.of("eur", new BigDecimal("0.8767"))), monday);
+        store.record("usd", RateTable.of("usd", Map.of("eur", new BigDecimal("0.8771"))), monday.plusDays(1));
+        store.record("usd", RateTable.of("usd", Map.of("gbp", new BigDecimal("0.7391"))), monday.plusDays(9));
+
+        assertEquals(List.of(
+                        new RateHistoryStore.DateRange(monday.minusDays(7), monday.minusDays(3)),
+                        new RateHistoryStore.DateRange(monday.plusDays(2), monday.plusDays(8)),
+                        new RateHistoryStore.DateRange(monday.plusDays(10), monday.plusDays(11))),
+                store.missingRanges("usd", monday.minusDays(7), monday.plusDays(13)),
+                "A downtime gap spanning a weekend is one range; weekends alone are never missing");
+        assertTrue(store.missingRanges("usd", monday, monday.plusDays(1)).isEmpty());
+        assertEquals(List.of(new RateHistoryStore.DateRange(monday, monday.plusDays(4))),
+                store.missingRanges("eur", monday, monday.plusDays(6)));
+    }
+
+    @Test
+    void testUnrecordedPairsAreCrossedThroughRecordedBase() throws IOException {
+        RateHistoryStore store = new RateHistoryStore(properties());
+        LocalDate day = LocalDate.of(2025, 6, 5);
+        store.record("usd", RateTable.of("usd", Map.of("eur", new BigDecimal("0.8"), "gbp", new BigDecimal("0.6"))), day);
+
+        assertEquals(new BigDecimal("0.750000"), store.range("eur", "gbp", day, day).get(day).rate());
+        assertEquals(new BigDecimal("1.250000"), store.range("eur", "usd", day, day).get(day).rate());
+        assertTrue(store.range("eur", "xxx", day, day).isEmpty());
+    }
+
+    @Test
+    void testCrossedPointIsLiveOnlyWhenBothLegsAre() throws IOException {
+        RateHistoryStore store = new RateHistoryStore(properties());
+        LocalDate day = LocalDate.of(2025, 6, 5);
+        store.record("usd", RateTable.of("usd", Map.of("eur", new BigDecimal("0.8"), "gbp", new BigDecimal("0.6"))), day);
+        store.recordAll("usd", "chf", new TreeMap<>(Map.of(day, new BigDecimal("0.82"))));
+
+        assertEquals(RateHistoryStore.Source.LIVE, store.range("eur", "gbp", day, day).get(day).source());
+        assertEquals(RateHistoryStore.Source.LIVE, store.range("eur", "usd", day, day).get(day).source());
+        assertEquals(RateHistoryStore.Source.BACKFILL, store.range("eur", "chf", day, day).get(day).source());
+        assertEquals(RateHistoryStore.Source.BACKFILL, new RateHistoryStore(properties()).range("usd", "chf", day, day).get(day).source(),
+                "The source must survive a reopen");
+    }
+
+    private static Map<LocalDate, BigDecimal> rates(NavigableMap<LocalDate, RateHistoryStore.Point> points) {
+        Map<LocalDate, BigDecimal> rates = new TreeMap<>();
+        points.forEach((date, point) -> rates.put(date, point.rate()));
+        return rates;
+    }
+
+    private ExchangeRateProperties properties() {
+        ExchangeRateProperties properties = new ExchangeRateProperties();
+        properties.getHistory().setPath(directory.toString());
+        properties.getHistory().setBases(List.of("usd"));
+        return properties;
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.exchange;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.embedded.netty.NettyWebServer;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("reactive")
+class ReactiveExchangeApplicationTests {
+
+    @Autowired
+    private ReactiveWebServerApplicationContext context;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    void contextLoadsOnNetty() {
+        assertInstanceOf(NettyWebServer.class, context.getWebServer());
+
+        webTestClient.get().uri("/metrics").exchange().expectStatus().isOk();
+        webTestClient.get().uri("/actuator/health").exchange().expectStatus().isOk();
+        webTestClient.get().uri("/actuator/slowrequests").exchange().expectStatus().isOk();
+        webTestClient.get().uri("/v3/api-docs").exchange().expectStatus().isOk();
+    }
+}
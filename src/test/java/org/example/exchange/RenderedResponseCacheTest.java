@@ -0,0 +1,50 @@
+package org.example.exchange;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.exchange.cache.RenderedResponseCache;
+import org.example.exchange.model.RateTable;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RenderedResponseCacheTest {
+
+    @Test
+    void testRendersOncePerRateTable() throws IOException {
+        RenderedResponseCache cache = new RenderedResponseCache(new CaffeineCacheManager());
+        RateTable table = RateTable.of("usd", Map.of("eur", new BigDecimal("0.8767"), "gbp", new BigDecimal("0.7383")));
+
+        RenderedResponseCache.RenderedResponse first = cache.get("usd", List.of("eur", "xxx"), table);
+        assertSame(first, cache.get("usd", List.of("eur", "xxx"), table));
+        assertEquals(Map.of("base", "usd", "rates", Map.of("eur", 0.8767)), new ObjectMapper().readValue(first.body(), Map.class),
+                "The version is sent as the ETag only, the body keeps the API's shape");
+        assertTrue(first.eTag().startsWith("\"" + table.getVersion() + "-"));
+        assertTrue(new String(first.body()).contains("0.876700"));
+
+        RateTable refreshed = RateTable.of("usd", Map.of("eur", new BigDecimal("0.8800")));
+        RenderedResponseCache.RenderedResponse second = cache.get("usd", List.of("eur", "xxx"), refreshed);
+        assertNotSame(first, second);
+        assertNotEquals(first.eTag(), second.eTag());
+        assertTrue(new String(second.body()).contains("0.880000"));
+    }
+
+    @Test
+    void testSymbolOrderCaseAndRepeatsShareOneResponse() {
+        RenderedResponseCache cache = new RenderedResponseCache(new CaffeineCacheManager());
+        RateTable table = RateTable.of("usd", Map.of("eur", new BigDecimal("0.8767"), "gbp", new BigDecimal("0.7383")));
+
+        RenderedResponseCache.RenderedResponse first = cache.get("usd", List.of("eur", "gbp"), table);
+        assertSame(first, cache.get("usd", List.of("gbp", "eur"), table));
+        assertSame(first, cache.get("usd", List.of("GBP", "eur", "gbp"), table));
+
+        Map<String, Object> result = Map.of("base", "usd", "rates", Map.of(), "pivot", "usd");
+        assertEquals(cache.render(result, "1", "usd", List.of("eur", "gbp")).eTag(),
+                cache.render(result, "1", "usd", List.of("gbp", "EUR")).eTag());
+    }
+}
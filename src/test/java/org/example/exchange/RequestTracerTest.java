@@ -0,0 +1,131 @@
+package org.example.exchange;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.example.exchange.cache.RateCache;
+import org.example.exchange.config.ExchangeRateProperties;
+import org.example.exchange.limit.UpstreamAdmission;
+import org.example.exchange.metrics.UpstreamMetrics;
+import org.example.exchange.provider.CurrencyApiRateProvider;
+import org.example.exchange.provider.FrankfurterRateProvider;
+import org.example.exchange.service.impl.ExchangeRateServiceImpl;
+import org.example.exchange.trace.RequestTrace;
+import org.example.exchange.trace.RequestTracer;
+import org.example.exchange.utils.WebClientUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RequestTracerTest {
+
+    private MockWebServer mockWebServer;
+    private ExchangeRateProperties exchangeRateProperties;
+    private ExchangeRateServiceImpl exchangeRateService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        mockWebServer = new MockWebServer();
+        mockWebServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                if (request.getPath().startsWith("/frankfurter/latest")) {
+                    return new MockResponse().setBody("{\"base\": \"USD\", \"rates\": {\"EUR\": 0.8764}}")
+                            .addHeader("Content-Type", "application/json")
+                            .setHeadersDelay(100, TimeUnit.MILLISECONDS);
+                }
+                if (request.getPath().startsWith("/primary/currencies/usd.json")) {
+                    return new MockResponse().setBody("{\"usd\": {\"eur\": 0.8770}}")
+                            .addHeader("Content-Type", "application/json");
+                }
+                return new MockResponse().setResponseCode(404);
+            }
+        });
+        mockWebServer.start();
+
+        exchangeRateProperties = new ExchangeRateProperties();
+        exchangeRateProperties.setUrls(Map.of(
+                "frankfurter-url", mockWebServer.url("/frankfurter").toString(),
+                "primary-currency-url", mockWebServer.url("/primary").toString()));
+        UpstreamMetrics upstreamMetrics = new UpstreamMetrics(exchangeRateProperties, new SimpleMeterRegistry());
+        WebClientUtil webClientUtil = new WebClientUtil(WebClient.builder().filter(upstreamMetrics.exchangeFilter()).build());
+
+        exchangeRateService = new ExchangeRateServiceImpl();
+        ReflectionTestUtils.setField(exchangeRateService, "rateProviders", List.of(
+                new FrankfurterRateProvider(webClientUtil, exchangeRateProperties),
+                new CurrencyApiRateProvider(webClientUtil, exchangeRateProperties)));
+        ReflectionTestUtils.setField(exchangeRateService, "exchangeRateProperties", exchangeRateProperties);
+        ReflectionTestUtils.setField(exchangeRateService, "rateCache", new RateCache(new CaffeineCacheManager()));
+        ReflectionTestUtils.setField(exchangeRateService, "upstreamAdmission", new UpstreamAdmission(exchangeRateProperties));
+        ReflectionTestUtils.setField(exchangeRateService, "cacheExpirySeconds", 300);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        mockWebServer.shutdown();
+    }
+
+    @RepeatedTest(10)
+    void testSlowRequestIsBrokenDownIntoPhases() {
+        exchangeRateProperties.getTracing().setSlowThreshold(Duration.ofMillis(50));
+        RequestTracer requestTracer = new RequestTracer(exchangeRateProperties);
+
+        for (int i = 0; i < 3; i++) {
+            requestTracer.trace("GET /exchangeRates/usd", exchangeRateService.getAverageExchangeRates("usd", List.of("eur")), result -> "200")
+                    .block();
+        }
+
+        List<RequestTrace> slowest = requestTracer.getSlowest();
+        assertEquals(1, slowest.size(), "Only the cache miss is slow");
+        assertEquals(1, requestTracer.getSlowRequestCount());
+
+        Map<String, Object> trace = slowest.get(0).toMap();
+        assertEquals("GET /exchangeRates/usd", trace.get("request"));
+        assertEquals("200", trace.get("outcome"));
+        assertTrue((double) trace.get("durationMs") >= 100);
+
+        List<Map<String, Object>> phases = (List<Map<String, Object>>) trace.get("phases");
+        Map<String, Map<String, Object>> byPhase = new HashMap<>();
+        phases.forEach(phase -> assertNull(byPhase.put((String) phase.get("phase"), phase), "Recorded twice: " + phase));
+        assertEquals(Map.of("cache", "miss", "load", "ok", "frankfurter-url", "200", "primary-currency-url", "200", "aggregation", "ok"),
+                Map.of("cache", byPhase.get("cache").get("detail"),
+                        "load", byPhase.get("load").get("detail"),
+                        "frankfurter-url", byPhase.get("frankfurter-url").get("detail"),
+                        "primary-currency-url", byPhase.get("primary-currency-url").get("detail"),
+                        "aggregation", byPhase.get("aggregation").get("detail")));
+        assertTrue((double) byPhase.get("frankfurter-url").get("durationMs") >= 100);
+    }
+
+    @Test
+    void testOnlyTheSlowestRecentRequestsAreRetained() {
+        exchangeRateProperties.getTracing().setSlowThreshold(Duration.ofMillis(10));
+        exchangeRateProperties.getTracing().setSlowestRetained(2);
+        RequestTracer requestTracer = new RequestTracer(exchangeRateProperties);
+
+        for (int delay : new int[]{30, 0, 50, 20, 40}) {
+            requestTracer.trace("delay " + delay, Mono.delay(Duration.ofMillis(delay)), tick -> "ok").block();
+        }
+
+        assertEquals(4, requestTracer.getSlowRequestCount());
+        assertEquals(List.of("delay 50", "delay 40"), requestTracer.getSlowest().stream().map(RequestTrace::getName).toList());
+
+        exchangeRateProperties.getTracing().setWindow(Duration.ZERO);
+        assertTrue(requestTracer.getSlowest().isEmpty(), "Requests older than the window are dropped");
+    }
+}
@@ -0,0 +1,126 @@
+package org.example.exchange;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.example.exchange.aspect.ApiMetricsAspect;
+import org.example.exchange.config.ExchangeRateProperties;
+import org.example.exchange.metrics.UpstreamMetrics;
+import org.example.exchange.utils.WebClientUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UpstreamMetricsTest {
+
+    private MockWebServer mockWebServer;
+    private SimpleMeterRegistry meterRegistry;
+    private UpstreamMetrics upstreamMetrics;
+    private ApiMetricsAspect apiMetricsAspect;
+    private WebClientUtil webClientUtil;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        mockWebServer = new MockWebServer();
+        mockWebServer.start();
+
+        ExchangeRateProperties properties = new ExchangeRateProperties();
+        properties.setUrls(Map.of(
+                "primary-currency-url", mockWebServer.url("/primary").toString(),
+                "fallback-currency-url", mockWebServer.url("/primary-fallback").toString()));
+        meterRegistry = new SimpleMeterRegistry();
+        upstreamMetrics = new UpstreamMetrics(properties, meterRegistry);
+
+        apiMetricsAspect = new ApiMetricsAspect();
+        ReflectionTestUtils.setField(apiMetricsAspect, "upstreamMetrics", upstreamMetrics);
+
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(
+                new WebClientUtil(WebClient.builder().filter(upstreamMetrics.exchangeFilter()).build()));
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(apiMetricsAspect);
+        webClientUtil = proxyFactory.getProxy();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        mockWebServer.shutdown();
+    }
+
+    @Test
+    void testLongestPrefixWins() {
+        assertEquals("fallback-currency-url", upstreamMetrics.forUrl(mockWebServer.url("/primary-fallback/x").toString()).getName());
+        assertEquals("primary-currency-url", upstreamMetrics.forUrl(mockWebServer.url("/primary/x").toString()).getName());
+        assertNull(upstreamMetrics.forUrl("http://elsewhere/x"));
+    }
+
+    @Test
+    void testFallbackRequestsAreRecordedPerApi() {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(500));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(500));
+
+        StepVerifier.create(webClientUtil.fetchDataWithFallback(
+                        mockWebServer.url("/primary/usd.json").toString(),
+                        mockWebServer.url("/primary-fallback/usd.json").toString()))
+                .verifyComplete();
+
+        Map<String, Object> primary = apiSnapshot("primary-currency-url");
+        assertEquals(1L, primary.get("totalRequests"));
+        assertEquals(0L, primary.get("successfulRequests"));
+        assertEquals(1L, primary.get("failedRequests"));
+        assertEquals(1L, meterRegistry.get("exchange.upstream.requests")
+                .tags("api", "primary-currency-url", "outcome", "SERVER_ERROR").timer().count());
+        assertEquals(1L, meterRegistry.get("exchange.upstream.requests")
+                .tags("api", "fallback-currency-url", "outcome", "SERVER_ERROR").timer().count());
+    }
+
+    @Test
+    void testCancelBeforeResponseIsNotATimeout() {
+        mockWebServer.enqueue(new MockResponse().setBody("{\"usd\": {}}").setHeadersDelay(2, TimeUnit.SECONDS));
+
+        StepVerifier.create(webClientUtil.fetchDataWithFallback(mockWebServer.url("/primary/usd.json").toString(), null))
+                .expectSubscription()
+                .thenAwait(Duration.ofMillis(200))
+                .thenCancel()
+                .verify();
+
+        assertEquals(1L, outcomeCount("CANCELLED"));
+        assertEquals(0L, outcomeCount("TIMEOUT"));
+    }
+
+    @Test
+    void testExpiredDeadlineIsRecordedAsTimeout() {
+        ExchangeRateProperties properties = new ExchangeRateProperties();
+        properties.getResilience().setMaxTimeout(Duration.ofMillis(200));
+        WebClientUtil timingOutClient = new WebClientUtil(
+                WebClient.builder().filter(upstreamMetrics.exchangeFilter()).build(), properties);
+        mockWebServer.enqueue(new MockResponse().setBody("{\"usd\": {}}").setHeadersDelay(2, TimeUnit.SECONDS));
+
+        StepVerifier.create(timingOutClient.fetchDataWithFallback(mockWebServer.url("/primary/usd.json").toString(), null))
+                .verifyComplete();
+
+        assertEquals(1L, outcomeCount("TIMEOUT"));
+        assertEquals(0L, outcomeCount("CANCELLED"));
+    }
+
+    private long outcomeCount(String outcome) {
+        return meterRegistry.get("exchange.upstream.requests")
+                .tags("api", "primary-currency-url", "outcome", outcome).timer().count();
+    }
+
+    private Map<String, Object> apiSnapshot(String name) {
+        List<Map<String, Object>> apis = (List<Map<String, Object>>) apiMetricsAspect.getWebClientMetrics().get("apis");
+        return apis.stream().filter(api -> name.equals(api.get("name"))).findFirst().orElseThrow();
+    }
+}
@@ -1,8 +1,13 @@
 package org.example.exchange;
 
+import okhttp3.mockwebserver.Dispatcher;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.example.exchange.config.ExchangeRateProperties;
+import org.example.exchange.model.RateQuotes;
 import org.example.exchange.service.impl.ExchangeRateServiceImpl;
+import org.example.exchange.utils.CircuitBreaker;
 import org.example.exchange.utils.WebClientUtil;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,10 +17,15 @@ import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -112,6 +122,240 @@ public class WebClientUtilTest {
     }
 
 
+    @Test
+    void testCircuitOpensAfterConsecutiveFailures() {
+        ExchangeRateProperties properties = new ExchangeRateProperties();
+        properties.getResilience().setFailureThreshold(2);
+        WebClientUtil guardedClient = new WebClientUtil(WebClient.builder().build(), properties);
+        for (int i = 0; i < 3; i++) {
+            mockWebServer.enqueue(new MockResponse().setResponseCode(500));
+        }
+
+        for (int i = 0; i < 3; i++) {
+            StepVerifier.create(guardedClient.fetchDataWithFallback(mockWebServer.url("/primary").toString(), null))
+                    .verifyComplete();
+        }
+
+        assertEquals(2, mockWebServer.getRequestCount(), "Open circuit should skip the failing host");
+        Map<String, Object> health = (Map<String, Object>) guardedClient.getUpstreamHealth()
+                .get(mockWebServer.getHostName() + ":" + mockWebServer.getPort());
+        assertEquals("OPEN", health.get("circuit"));
+    }
+
+    @Test
+    void testLateFailuresDoNotExtendAnOpenCircuit() throws InterruptedException {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, Duration.ofMillis(200));
+        circuitBreaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        Thread.sleep(150);
+        // calls started before the circuit opened keep failing in
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+        Thread.sleep(100);
+
+        assertTrue(circuitBreaker.tryAcquire(), "The trial call is due once the original open period has passed");
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        circuitBreaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState(), "A failed trial opens the circuit again");
+        assertFalse(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    void testWarmHostThatSlowsDownIsUsedAgain() throws InterruptedException {
+        AtomicInteger delayMillis = new AtomicInteger(50);
+        mockWebServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse().setBody("{\"rates\": {\"EUR\": 0.8}}").addHeader("Content-Type", "application/json")
+                        .setHeadersDelay(delayMillis.get(), TimeUnit.MILLISECONDS);
+            }
+        });
+        ExchangeRateProperties properties = new ExchangeRateProperties();
+        properties.getResilience().setMinSamples(16);
+        properties.getResilience().setMinTimeout(Duration.ofMillis(100));
+        properties.getResilience().setMaxTimeout(Duration.ofSeconds(3));
+        properties.getResilience().setFailureThreshold(2);
+        properties.getResilience().setOpenDuration(Duration.ofMillis(100));
+        properties.getResilience().setHedging(false);
+        WebClientUtil adaptiveClient = new WebClientUtil(WebClient.builder().build(), properties);
+        String url = mockWebServer.url("/primary").toString();
+        for (int i = 0; i < 16; i++) {
+            assertNotNull(adaptiveClient.fetchRatesWithFallback(url, null, "rates").block(Duration.ofSeconds(5)));
+        }
+
+        delayMillis.set(1000);
+        int attempts = 0;
+        while (adaptiveClient.fetchRatesWithFallback(url, null, "rates").block(Duration.ofSeconds(5)) == null) {
+            assertTrue(++attempts < 6, "A host that slowed past its adaptive timeout should be reached again");
+            Thread.sleep(150);
+        }
+        for (int i = 0; i < 3; i++) {
+            assertNotNull(adaptiveClient.fetchRatesWithFallback(url, null, "rates").block(Duration.ofSeconds(5)),
+                    "Once reached, the slower host should keep answering within its timeout");
+        }
+
+        Map<String, Object> health = (Map<String, Object>) adaptiveClient.getUpstreamHealth()
+                .get(mockWebServer.getHostName() + ":" + mockWebServer.getPort());
+        assertEquals("CLOSED", health.get("circuit"));
+        assertTrue((long) health.get("timeoutMs") > 1000);
+    }
+
+    @Test
+    void testBulkFetchBypassesBreakerAndLatencyWindow() {
+        mockWebServer.enqueue(new MockResponse()
+                .setBody("{\"rates\": {\"2025-06-04\": {\"EUR\": 0.87}, \"2025-06-05\": {\"EUR\": 0.88}}}")
+                .addHeader("Content-Type", "application/json")
+                .addHeader("ETag", "\"series\""));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(500));
+
+        String url = mockWebServer.url("/2025-06-04..2025-06-05").toString();
+        StepVerifier.create(webClientUtil.fetchBulk(url, Duration.ofSeconds(5)))
+                .assertNext(response -> assertEquals(2, ((Map<String, Object>) response.get("rates")).size()))
+                .verifyComplete();
+        StepVerifier.create(webClientUtil.fetchBulk(url, Duration.ofSeconds(5)))
+                .expectError()
+                .verify();
+
+        assertTrue(webClientUtil.getUpstreamHealth().isEmpty(), "Bulk fetches must not touch the host's breaker or latency window");
+    }
+
+    @Test
+    void testHedgedFallbackBeatsSlowPrimary() throws IOException {
+        MockWebServer fallbackServer = new MockWebServer();
+        fallbackServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse().setBody("{\"rates\": {\"EUR\": 0.9}}").addHeader("Content-Type", "application/json");
+            }
+        });
+        fallbackServer.start();
+        AtomicInteger primaryCalls = new AtomicInteger();
+        mockWebServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                MockResponse response = new MockResponse().setBody("{\"rates\": {\"EUR\": 0.8}}").addHeader("Content-Type", "application/json");
+                return primaryCalls.incrementAndGet() > 16 ? response.setHeadersDelay(3, TimeUnit.SECONDS) : response;
+            }
+        });
+
+        try {
+            ExchangeRateProperties properties = new ExchangeRateProperties();
+            properties.getResilience().setMinSamples(16);
+            WebClientUtil hedgingClient = new WebClientUtil(WebClient.builder().build(), properties);
+            String primaryUrl = mockWebServer.url("/primary").toString();
+            String fallbackUrl = fallbackServer.url("/fallback").toString();
+            for (int i = 0; i < 16; i++) {
+                StepVerifier.create(hedgingClient.fetchRatesWithFallback(primaryUrl, fallbackUrl, "rates"))
+                        .expectNextCount(1)
+                        .verifyComplete();
+            }
+
+            String primaryHost = mockWebServer.getHostName() + ":" + mockWebServer.getPort();
+            Map<String, Object> before = (Map<String, Object>) hedgingClient.getUpstreamHealth().get(primaryHost);
+
+            StepVerifier.create(hedgingClient.fetchRatesWithFallback(primaryUrl, fallbackUrl, "rates"))
+                    .assertNext(quotes -> assertEquals(new BigDecimal("0.9"), quotes.getRate(0)))
+                    .expectComplete()
+                    .verify(Duration.ofSeconds(1));
+
+            Map<String, Object> after = (Map<String, Object>) hedgingClient.getUpstreamHealth().get(primaryHost);
+            assertEquals(before.get("samples"), after.get("samples"), "The cancelled primary must not be sampled");
+            assertEquals(before.get("p95Ms"), after.get("p95Ms"));
+            assertEquals(before.get("timeoutMs"), after.get("timeoutMs"));
+        } finally {
+            fallbackServer.shutdown();
+        }
+    }
+
+    @Test
+    void testFetchRatesWithPrimaryFailureFallbackSuccess() {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(500));
+        mockWebServer.enqueue(new MockResponse()
+                .setBody("{\"date\": \"2025-06-04\", \"eur\": {"
+                        + "\"aed\": 4.18161263,"
+                        + "\"afn\": 79.22778031"
+                        + "}}")
+                .setResponseCode(200)
+                .addHeader("Content-Type", "application/json"));
+
+        Mono<RateQuotes> result = webClientUtil.fetchRatesWithFallback(
+                mockWebServer.url("/primary").toString(),
+                mockWebServer.url("/fallback").toString(),
+                "eur"
+        );
+
+        StepVerifier.create(result).assertNext(quotes -> {
+                    assertEquals(2, quotes.size());
+                    assertEquals("aed", quotes.getCurrency(0));
+                    assertEquals(new BigDecimal("4.18161263"), quotes.getRate(0));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void testFetchRatesRevalidatesWithETag() throws InterruptedException {
+        mockWebServer.enqueue(new MockResponse()
+                .setBody("{\"eur\": {\"aed\": 4.18161263}}")
+                .setResponseCode(200)
+                .addHeader("Content-Type", "application/json")
+                .addHeader("ETag", "\"v1\"")
+                .addHeader("Last-Modified", "Wed, 04 Jun 2025 00:00:00 GMT"));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(304).addHeader("ETag", "\"v1\""));
+
+        String url = mockWebServer.url("/currencies/eur.json").toString();
+        RateQuotes first = webClientUtil.fetchRatesWithFallback(url, null, "eur").block();
+        RateQuotes second = webClientUtil.fetchRatesWithFallback(url, null, "eur").block();
+
+        assertSame(first, second, "A 304 should reuse the previously parsed quotes");
+        assertNull(mockWebServer.takeRequest().getHeader("If-None-Match"));
+        RecordedRequest revalidation = mockWebServer.takeRequest();
+        assertEquals("\"v1\"", revalidation.getHeader("If-None-Match"));
+        assertEquals("Wed, 04 Jun 2025 00:00:00 GMT", revalidation.getHeader("If-Modified-Since"));
+    }
+
+    @Test
+    void testRevalidationIsDroppedWithTheTableItBuilt() throws InterruptedException {
+        WebClientUtil expiringClient = new WebClientUtil(WebClient.builder().build(), new ExchangeRateProperties(), 0);
+        for (int i = 0; i < 2; i++) {
+            mockWebServer.enqueue(new MockResponse()
+                    .setBody("{\"eur\": {\"aed\": 4.18161263}}")
+                    .setResponseCode(200)
+                    .addHeader("Content-Type", "application/json")
+                    .addHeader("ETag", "\"v1\""));
+        }
+
+        String url = mockWebServer.url("/currencies/eur.json").toString();
+        expiringClient.fetchRatesWithFallback(url, null, "eur").block();
+        expiringClient.fetchRatesWithFallback(url, null, "eur").block();
+
+        mockWebServer.takeRequest();
+        assertNull(mockWebServer.takeRequest().getHeader("If-None-Match"), "An expired body must not be revalidated");
+    }
+
+    @Test
+    void testParseRatesSkipsUnrelatedFields() throws IOException {
+        String payload = "{\"amount\": 1.0, \"meta\": {\"rates\": {\"XXX\": 1}}, \"tags\": [1, 2, {\"a\": 3}],"
+                + "\"rates\": {\"AUD\": 1.5364, \"BGN\": \"n/a\", \"CAD\": {\"nested\": 1}, \"CHF\": 0.8213}}";
+
+        RateQuotes quotes = WebClientUtil.parseRates(
+                new ByteArrayInputStream(payload.getBytes(StandardCharsets.UTF_8)), "rates");
+
+        assertEquals(2, quotes.size());
+        assertEquals("aud", quotes.getCurrency(0));
+        assertEquals(new BigDecimal("1.5364"), quotes.getRate(0));
+        assertEquals("chf", quotes.getCurrency(1));
+        assertEquals(new BigDecimal("0.8213"), quotes.getRate(1));
+    }
+
+    @Test
+    void testParseRatesWithMissingField() throws IOException {
+        RateQuotes quotes = WebClientUtil.parseRates(
+                new ByteArrayInputStream("{\"date\": \"2025-06-04\"}".getBytes(StandardCharsets.UTF_8)), "usd");
+
+        assertTrue(quotes.isEmpty());
+    }
+
     @Test
     void testFormatExchangeDataWithRates() {
         Map<String, Object> response = Map.of(